@@ -0,0 +1,89 @@
+package app.finwave.rct.benchmark;
+
+import app.finwave.rct.config.json.JsonNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link JsonNode}: lookup of accessors and delivery of source changes with thousands of keys
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonNodeBenchmark {
+    @Param({"100", "5000"})
+    int keys;
+
+    Property<JsonObject> source;
+    JsonNode node;
+
+    List<Property<Integer>> subscribed = new ArrayList<>(); // properties without listeners are cached by node weakly
+    String[] names;
+    int next;
+
+    @Setup
+    public void setup() {
+        JsonObject object = new JsonObject();
+        names = new String[keys];
+
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key" + i;
+            object.addProperty(names[i], i);
+        }
+
+        source = Property.of(object);
+        node = new JsonNode(source, new Gson());
+
+        for (String name : names) {
+            subscribed.add(node.getAsInteger(name));
+        }
+    }
+
+    /**
+     * Lookup of already subscribed property
+     */
+    @Benchmark
+    public Property<Integer> cachedAccessor() {
+        return node.getAsInteger(names[next++ % keys]);
+    }
+
+    /**
+     * Read of value through accessor, as code without a stored property does
+     */
+    @Benchmark
+    public Integer accessorGet() {
+        return node.getAsInteger(names[next++ % keys]).get();
+    }
+
+    /**
+     * Source replaced by object with one changed key, as after reload of the file
+     */
+    @Benchmark
+    public Integer sourceChangedOneKey() {
+        JsonObject changed = source.get().deepCopy();
+        changed.addProperty(names[0], ++next);
+
+        source.set(changed);
+
+        return subscribed.get(0).get();
+    }
+
+    /**
+     * Write through property to the source object
+     */
+    @Benchmark
+    public JsonObject writeOneKey() {
+        subscribed.get(next % keys).set(++next);
+
+        return source.get();
+    }
+}
@@ -0,0 +1,155 @@
+package app.finwave.rct.benchmark;
+
+import app.finwave.rct.reactive.ListenerRemover;
+import app.finwave.rct.reactive.property.Property;
+import app.finwave.rct.reactive.value.Value;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmarks of the reactive core: reads of property, depth of map chains and fan-out of dynamic values
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactiveBenchmark {
+
+    /**
+     * Property read by several threads while one thread changes it
+     */
+    @State(Scope.Group)
+    public static class Contended {
+        Property<Integer> property;
+        int next;
+
+        @Setup
+        public void setup() {
+            property = Property.of(0);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Integer contendedGet(Contended state) {
+        return state.property.get();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedSet(Contended state) {
+        state.property.set(state.next++ & 1023);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Uncontended {
+        Property<Integer> property;
+
+        @Setup
+        public void setup() {
+            property = Property.of(42);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer uncontendedGet(Uncontended state) {
+        return state.property.get();
+    }
+
+    /**
+     * Chain of two-sided maps: root -> child -> ... -> leaf
+     */
+    @State(Scope.Thread)
+    public static class MapChain {
+        @Param({"1", "10", "100"})
+        int depth;
+
+        Property<Integer> root;
+        Property<Integer> leaf;
+        int next;
+
+        @Setup
+        public void setup() {
+            root = Property.of(0);
+
+            Property<Integer> current = root;
+
+            for (int i = 0; i < depth; i++) {
+                current = current.map(Function.identity(), Function.identity()); // children are kept by their parents
+            }
+
+            leaf = current;
+        }
+    }
+
+    @Benchmark
+    public Integer mapChainSetRoot(MapChain state) {
+        state.root.set(++state.next);
+
+        return state.leaf.get();
+    }
+
+    @Benchmark
+    public Integer mapChainSetLeaf(MapChain state) {
+        state.leaf.set(++state.next);
+
+        return state.root.get();
+    }
+
+    /**
+     * One source with many dynamic values depending on it
+     */
+    @State(Scope.Thread)
+    public static class FanOut {
+        @Param({"10", "1000", "10000"})
+        int width;
+
+        @Param({"true", "false"})
+        boolean observed;
+
+        Property<Integer> source;
+        List<Value<Integer>> values = new ArrayList<>();
+        List<ListenerRemover> listeners = new ArrayList<>();
+        int next;
+
+        @Setup
+        public void setup() {
+            source = Property.of(0);
+
+            for (int i = 0; i < width; i++) {
+                int shift = i;
+                Value<Integer> value = Value.dynamic(() -> source.get() + shift, source);
+
+                if (observed)
+                    listeners.add(value.addChangeListener((n) -> {}));
+
+                values.add(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fanOutSetAndReadAll(FanOut state, Blackhole blackhole) {
+        state.source.set(++state.next);
+
+        for (Value<Integer> value : state.values) {
+            blackhole.consume(value.get());
+        }
+    }
+
+    @Benchmark
+    public void fanOutSetAndReadOne(FanOut state, Blackhole blackhole) {
+        state.source.set(++state.next);
+
+        blackhole.consume(state.values.get(0).get());
+    }
+}
@@ -0,0 +1,97 @@
+package app.finwave.rct.benchmark;
+
+import app.finwave.rct.config.ConfigManager;
+import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.config.json.JsonTransformer;
+import app.finwave.rct.config.json.StreamingJsonTransformer;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full reload: file is changed on disk, {@link ConfigManager} finds the change, parses the file and delivers it to a listener
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReloadBenchmark {
+    @Param({"10", "5000"})
+    int keys;
+
+    @Param({"false", "true"})
+    boolean streaming;
+
+    Path directory;
+    Path file;
+    ConfigManager manager;
+    ConfigNode node;
+    Property<Integer> changed;
+
+    final Semaphore delivered = new Semaphore(0);
+    String[] contents = new String[2];
+    int next;
+    volatile int expected;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("rct-bench");
+        file = directory.resolve("config.json");
+
+        for (int version = 0; version < contents.length; version++) {
+            StringBuilder builder = new StringBuilder("{\"changed\":").append(version);
+
+            for (int i = 0; i < keys; i++) {
+                builder.append(",\"key").append(i).append("\":").append(i);
+            }
+
+            contents[version] = builder.append('}').toString();
+        }
+
+        Files.writeString(file, contents[0]);
+
+        manager = new ConfigManager().debounce(0, 0, TimeUnit.MILLISECONDS); // measure the pipeline, not the coalescing delay
+        node = manager.load(file.toFile(), streaming ? new StreamingJsonTransformer(new Gson(), true) : new JsonTransformer(new Gson(), true));
+
+        changed = node.getAsInteger("changed");
+        changed.addChangeListener((n) -> {
+            if (n != null && n == expected) // not an intermediate state of the file
+                delivered.release();
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Integer reload() throws IOException, InterruptedException {
+        expected = ++next & 1;
+
+        Path temp = directory.resolve("config.json.tmp");
+        Files.writeString(temp, contents[expected]);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING); // watcher never reads a truncated file
+
+        if (!delivered.tryAcquire(10, TimeUnit.SECONDS))
+            throw new IllegalStateException("Change was not delivered");
+
+        return changed.get();
+    }
+}
@@ -0,0 +1,41 @@
+package app.finwave.rct.config;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Change of one path of config, see {@link ConfigChangeSet}
+ */
+public class ConfigChange {
+    public enum Type {
+        ADDED,
+        REMOVED,
+        MODIFIED
+    }
+
+    public final List<String> path;
+    public final Type type;
+
+    public ConfigChange(List<String> path, Type type) {
+        this.path = path;
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConfigChange that = (ConfigChange) o;
+        return path.equals(that.path) && type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, type);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + String.join(".", path);
+    }
+}
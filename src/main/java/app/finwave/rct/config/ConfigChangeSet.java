@@ -0,0 +1,63 @@
+package app.finwave.rct.config;
+
+import java.util.List;
+
+/**
+ * Changes of config node between two versions, see {@link ConfigNode#changes()}.
+ * <p>
+ * Changes are compact: when an object is added, removed or replaced by a value of other type, only its own path is listed.
+ * Paths are relative to the node
+ */
+public class ConfigChangeSet {
+    public static final ConfigChangeSet EMPTY = new ConfigChangeSet(0, List.of());
+
+    protected final long version;
+    protected final List<ConfigChange> changes;
+
+    public ConfigChangeSet(long version, List<ConfigChange> changes) {
+        this.version = version;
+        this.changes = changes;
+    }
+
+    /**
+     * @return Version of node after these changes, see {@link ConfigSnapshot#version()}
+     */
+    public long version() {
+        return version;
+    }
+
+    public List<ConfigChange> changes() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * @return true if value of path, its parent or any of its children is changed
+     */
+    public boolean affects(String... path) {
+        for (ConfigChange change : changes) {
+            int common = Math.min(path.length, change.path.size());
+            boolean prefix = true;
+
+            for (int i = 0; i < common && prefix; i++) {
+                prefix = path[i].equals(change.path.get(i));
+            }
+
+            if (prefix)
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangeSet{" +
+                "version=" + version +
+                ", changes=" + changes +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package app.finwave.rct.config;
+
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * State of one loaded file
+ */
+class ConfigFile {
+    public final Path path;
+    public final long writeBehindPeriod;
+    public final boolean atomic;
+    public final boolean fsync;
+
+    public volatile String onDisk; // content what was last read from or written to the file, to skip watcher events what did not change it
+    public volatile FileStamp stamp; // stamp of the file with onDisk content, to skip such events without reading the file
+    public final ReentrantLock writeLock = new ReentrantLock(); // not a monitor, so virtual threads are not pinned while writing
+
+    protected String pending;
+    protected boolean flushScheduled;
+
+    public ConfigFile(Path path, long writeBehindPeriod, boolean atomic, boolean fsync) {
+        this.path = path;
+        this.writeBehindPeriod = writeBehindPeriod;
+        this.atomic = atomic;
+        this.fsync = fsync;
+    }
+
+    /**
+     * @return true if flush should be scheduled
+     */
+    public synchronized boolean markPending(String content) {
+        pending = content;
+
+        if (flushScheduled)
+            return false;
+
+        return flushScheduled = true;
+    }
+
+    public synchronized String takePending() {
+        String content = pending;
+
+        pending = null;
+        flushScheduled = false;
+
+        return content;
+    }
+
+    /**
+     * Put back content what could not be written, unless newer content is pending
+     * @return true if flush should be scheduled
+     */
+    public synchronized boolean restorePending(String content) {
+        if (pending == null)
+            pending = content;
+
+        if (flushScheduled)
+            return false;
+
+        return flushScheduled = true;
+    }
+
+    public synchronized void discardPending() {
+        pending = null;
+    }
+}
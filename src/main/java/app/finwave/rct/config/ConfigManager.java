@@ -1,11 +1,26 @@
 package app.finwave.rct.config;
 
 import app.finwave.rct.reactive.property.Property;
+import app.finwave.rct.reactive.value.Value;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,26 +43,94 @@ import java.util.concurrent.TimeUnit;
  * get String "textToPrint" and print it.
  * <p>
  * If the config is empty or just does not provide this variable, "Hello World!" is used, and it is written to this file
+ * <p>
+ * All managers share one process-wide file watching registry. Call {@link ConfigManager#close()} to release watches of this manager
+ * and write pending changes (see {@link ConfigManager#writeBehind(long, TimeUnit)})
  */
-public class ConfigManager {
+public class ConfigManager implements Closeable {
+    // write-behind flushes block on disk I/O, so they do not share the thread of watch timers and polling
+    protected static final ScheduledExecutorService writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rct-write-behind");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
     protected FileWatcher watcher;
 
+    protected List<ConfigFile> files = new CopyOnWriteArrayList<>();
+    protected long writeBehindPeriod;
+    protected boolean atomicWrites;
+    protected boolean fsync;
+    protected volatile boolean closed;
+
+    protected Property<Throwable> writeError = Property.create();
+
     /**
-     * Creates new ConfigManager what track config files changes from the filesystem every second
+     * Creates new ConfigManager what track config files changes from the filesystem as soon as they happen
      * @throws IOException If an I/O error occurs
      */
     public ConfigManager() throws IOException {
-        this(1, TimeUnit.SECONDS);
+        this.watcher = new FileWatcher();
     }
 
     /**
-     * Creates new ConfigManager with specific period of tracking config files changes from the filesystem
+     * Creates new ConfigManager with specific period of tracking config files changes from the filesystem.
+     * Polling is a fallback for systems where event-driven watching is not desired
      * @throws IOException If an I/O error occurs
      */
     public ConfigManager(long watchPeriod, TimeUnit timeUnit) throws IOException {
         this.watcher = new FileWatcher(watchPeriod, timeUnit);
     }
 
+    /**
+     * Set how bursts of filesystem events of one file are coalesced into one read of the file.
+     * Applies to files loaded after this call. See {@link FileWatcher#debounce(long, long, TimeUnit)}
+     * @param quietPeriod File is read when there were no new events during this period. 0 reads file on each event
+     * @param maxDelay Max delay between the first event of a burst and reading the file
+     * @return This manager
+     */
+    public ConfigManager debounce(long quietPeriod, long maxDelay, TimeUnit timeUnit) {
+        watcher.debounce(quietPeriod, maxDelay, timeUnit);
+
+        return this;
+    }
+
+    /**
+     * Enable write-behind mode for files loaded after this call: changes from code mark the file dirty
+     * and it is written at most once per period on a background thread, so callers do not wait for disk I/O.
+     * <p>
+     * Pending changes are also written by {@link ConfigManager#flush()} and {@link ConfigManager#close()}.
+     * If the file is changed from outside before pending changes are written, outside changes win.
+     * Changes what cannot be written stay pending and are written again after the period, the error is provided by {@link ConfigManager#writeError()}
+     * @param period Max delay of writing changes. 0 writes changes immediately on the caller thread (default)
+     * @return This manager
+     */
+    public ConfigManager writeBehind(long period, TimeUnit timeUnit) {
+        if (period < 0)
+            throw new IllegalArgumentException("Period should be non-negative");
+
+        this.writeBehindPeriod = timeUnit.toNanos(period);
+
+        return this;
+    }
+
+    /**
+     * Enable atomic writes for files loaded after this call: content is written to a temporary file in the same directory
+     * and moved over the config file, so readers (including watchers of other processes) never see a partially written file.
+     * <p>
+     * Permissions of the config file are copied to the new file. Note what a read-only file is replaced as well, if its directory is writable.
+     * If the config file is a symbolic link, its target is replaced and the link is kept
+     * @param fsync Force content and the directory entry to the storage device before returning, so the file survives a crash of the system
+     * @return This manager
+     */
+    public ConfigManager atomicWrites(boolean fsync) {
+        this.atomicWrites = true;
+        this.fsync = fsync;
+
+        return this;
+    }
+
     protected Property<String> loadString(File file) throws IOException {
         if (!file.exists()) {
             File parent = file.getParentFile();
@@ -58,26 +141,62 @@ public class ConfigManager {
             file.createNewFile();
         }
 
+        ConfigFile configFile = new ConfigFile(file.toPath(), writeBehindPeriod, atomicWrites, fsync);
         Property<String> fileContent = Property.create();
 
-        fileContent.set(Files.readString(file.toPath()));
+        configFile.stamp = stamp(configFile.path); // before reading, so changes after reading change the stamp
+        configFile.onDisk = read(configFile.path);
+        fileContent.set(configFile.onDisk);
+
         watcher.watch(file, () -> {
-            String content = null;
+            String content;
+
+            configFile.writeLock.lock(); // our writes are not seen half-done
 
             try {
-                content = Files.readString(file.toPath());
-            } catch (IOException ex) {
-                ex.printStackTrace();
+                FileStamp stamp = stamp(configFile.path);
+                FileStamp known = configFile.stamp;
+
+                if (stamp != null && stamp.equals(known) && !known.ambiguous())
+                    return; // echo of our write or event without changes of file, pending changes are kept
+
+                try {
+                    content = read(configFile.path);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    content = null;
+                }
+
+                configFile.stamp = stamp; // taken before reading, a change after it changes the stamp of the next event
+
+                if (Objects.equals(content, configFile.onDisk))
+                    return; // echo of our write or event without changes of content, pending changes are kept
+
+                configFile.onDisk = content;
+
+                if (Objects.equals(content, fileContent.get()))
+                    return;
+
+                configFile.discardPending();
+            }finally {
+                configFile.writeLock.unlock();
             }
 
-            if (!Objects.equals(content, fileContent.get()))
-                fileContent.set(content);
+            fileContent.set(content);
         });
 
+        files.add(configFile);
+
         return fileContent.map((from) -> from, (to) -> { // watch fileContent updates from code
             if (!Objects.equals(to, fileContent.get())) {
+                if (configFile.writeBehindPeriod > 0) {
+                    scheduleWrite(configFile, to);
+
+                    return to;
+                }
+
                 try {
-                    Files.writeString(file.toPath(), to);
+                    write(configFile, to);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -87,6 +206,162 @@ public class ConfigManager {
         });
     }
 
+    protected String read(Path path) throws IOException {
+        return Files.readString(path);
+    }
+
+    /**
+     * @return Stamp of the file or null if it cannot be taken, so the file is read on the next event
+     */
+    protected FileStamp stamp(Path path) {
+        try {
+            return FileStamp.of(path);
+        }catch (IOException e) {
+            return null;
+        }
+    }
+
+    protected void write(ConfigFile file, String content) throws IOException {
+        file.writeLock.lock();
+
+        try {
+            if (file.atomic)
+                writeAtomic(file, content);
+            else
+                Files.writeString(file.path, content);
+
+            file.onDisk = content;
+            file.stamp = stamp(file.path);
+        }finally {
+            file.writeLock.unlock();
+        }
+    }
+
+    protected void writeAtomic(ConfigFile file, String content) throws IOException {
+        Path target = file.path.toAbsolutePath();
+
+        try {
+            target = target.toRealPath(); // rename replaces the link itself, so content of symlinked file is moved over its target
+        }catch (NoSuchFileException ignored) {} // created by the move
+
+        Path directory = target.getParent();
+        Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                if (file.fsync)
+                    channel.force(true);
+            }
+
+            copyPermissions(target, temp);
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (file.fsync)
+                syncDirectory(directory);
+        }finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    protected void copyPermissions(Path from, Path to) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+
+        if (view == null || !Files.exists(from))
+            return;
+
+        Files.getFileAttributeView(to, PosixFileAttributeView.class).setPermissions(view.readAttributes().permissions());
+    }
+
+    protected void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }catch (IOException ignored) {} // directories cannot be opened on some systems, rename is durable there anyway
+    }
+
+    protected void scheduleWrite(ConfigFile file, String content) {
+        if (file.markPending(content))
+            scheduleFlush(file);
+    }
+
+    protected void scheduleFlush(ConfigFile file) {
+        writeBehindExecutor.schedule(() -> {
+            try {
+                flush(file);
+            } catch (IOException | RuntimeException ignored) {} // reported by writeError(), content is written again later
+        }, file.writeBehindPeriod, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Write pending content of file. If it cannot be written, content stays pending and is written again after the write-behind period
+     */
+    protected void flush(ConfigFile file) throws IOException {
+        file.writeLock.lock(); // take pending content under the write lock, so the latest content is written last
+
+        try {
+            String content = file.takePending();
+
+            if (content == null)
+                return;
+
+            try {
+                write(file, content);
+            }catch (IOException | RuntimeException e) {
+                if (file.restorePending(content) && !closed)
+                    scheduleFlush(file);
+
+                writeError.set(e);
+
+                throw e;
+            }
+
+            if (writeError.get() != null)
+                writeError.set((Throwable) null);
+        }finally {
+            file.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Provide error of the last write of pending changes, or null if it succeeded.
+     * Changes what could not be written stay pending and are written again, see {@link ConfigManager#writeBehind(long, TimeUnit)}
+     */
+    public Value<Throwable> writeError() {
+        return writeError;
+    }
+
+    /**
+     * Write pending changes of all files loaded in write-behind mode
+     * @throws IOException If an I/O error occurs. Changes of files what cannot be written stay pending
+     */
+    public void flush() throws IOException {
+        IOException exception = null;
+
+        for (ConfigFile file : files) {
+            try {
+                flush(file);
+            } catch (IOException e) {
+                if (exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+
+        if (exception != null)
+            throw exception;
+    }
+
     /**
      * Provide root {@link ConfigNode} from file.
      * If the file does not exist, a new one will be created, including non-existent folders for this file.
@@ -111,4 +386,19 @@ public class ConfigManager {
 
         return transformer.transform(fileContent);
     }
+
+    /**
+     * Write pending changes and stop tracking changes of loaded files. Loaded nodes keep working, but will not receive changes from the filesystem
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        try {
+            flush();
+        } finally {
+            watcher.close();
+        }
+    }
 }
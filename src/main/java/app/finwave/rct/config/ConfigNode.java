@@ -1,7 +1,20 @@
 package app.finwave.rct.config;
 
+import app.finwave.rct.reactive.property.BooleanProperty;
+import app.finwave.rct.reactive.property.DoubleProperty;
+import app.finwave.rct.reactive.property.IntProperty;
+import app.finwave.rct.reactive.property.LongProperty;
 import app.finwave.rct.reactive.property.Property;
+import app.finwave.rct.reactive.value.Value;
 
+import java.util.function.Consumer;
+
+/**
+ * Node of config with reactive values.
+ * <p>
+ * Implementations may return the same property for the same key and type.
+ * They may collect properties without listeners, but listeners of property are called while they are added, even if the property is not referenced.
+ */
 public interface ConfigNode {
 
     /**
@@ -42,6 +55,38 @@ public interface ConfigNode {
      */
     Property<Long> getAsLong(String key);
 
+    /**
+     * Provide reactive int value from this node with primitive accessors, see {@link IntProperty}.
+     * Default implementation binds it to {@link ConfigNode#getAsInteger(String)}
+     */
+    default IntProperty getAsIntProperty(String key) {
+        return IntProperty.of(getAsInteger(key));
+    }
+
+    /**
+     * Provide reactive long value from this node with primitive accessors, see {@link LongProperty}.
+     * Default implementation binds it to {@link ConfigNode#getAsLong(String)}
+     */
+    default LongProperty getAsLongProperty(String key) {
+        return LongProperty.of(getAsLong(key));
+    }
+
+    /**
+     * Provide reactive double value from this node with primitive accessors, see {@link DoubleProperty}.
+     * Default implementation binds it to {@link ConfigNode#getAsDouble(String)}
+     */
+    default DoubleProperty getAsDoubleProperty(String key) {
+        return DoubleProperty.of(getAsDouble(key));
+    }
+
+    /**
+     * Provide reactive boolean value from this node with primitive accessors, see {@link BooleanProperty}.
+     * Default implementation binds it to {@link ConfigNode#getAsBoolean(String)}
+     */
+    default BooleanProperty getAsBooleanProperty(String key) {
+        return BooleanProperty.of(getAsBoolean(key));
+    }
+
     /**
      * Provide subnode from this node.
      */
@@ -51,4 +96,57 @@ public interface ConfigNode {
      * Check key is existing.
      */
     boolean exists(String key);
+
+    /**
+     * Provide error of the last parsing of the config source, or null if it was parsed successfully.
+     * Subnodes provide error of the whole source.
+     * <p>
+     * Useful with transformers what keep the last valid config when the source cannot be parsed, see {@link app.finwave.rct.config.json.JsonTransformer}
+     */
+    default Value<Throwable> parseError() {
+        return Value.wrap(null);
+    }
+
+    /**
+     * Provide immutable view of this node: all its values and values of its subnodes come from one version of config.
+     * Version of node grows each time when node is changed (reloaded from the source or written by code),
+     * so listeners can find out which version they see. Subnodes share version of the whole config:
+     * snapshot of subnode has the same version as snapshot of the root taken at the same moment.
+     * <p>
+     * Default implementation is best effort: it reads values through properties on the first request and keeps them,
+     * so values do not change after they are read, but they may come from different versions and version is always 0
+     */
+    default ConfigSnapshot snapshot() {
+        return new PropertySnapshot(this);
+    }
+
+    /**
+     * Provide the last changes of this node: which paths were added, removed or modified by reload or write.
+     * Useful for auditing, listener is called once per change with all changed paths
+     */
+    default Value<ConfigChangeSet> changes() {
+        return Value.wrap(ConfigChangeSet.EMPTY);
+    }
+
+    /**
+     * Change many values at once. Example:
+     * <pre>
+     *     {@code
+     *     config.update(tx -> {
+     *         tx.set("host", "localhost");
+     *         tx.set("port", 8080);
+     *         tx.node("pool").set("size", 16);
+     *     });
+     *     }
+     * </pre>
+     * Implementations apply all changes with one propagation to the source.
+     * Default implementation sets values through properties one by one, so removed values are set to null
+     * @param transaction Function what describes changes
+     */
+    default void update(Consumer<ConfigTransaction> transaction) {
+        PropertyTransaction propertyTransaction = new PropertyTransaction(this);
+        transaction.accept(propertyTransaction);
+
+        propertyTransaction.apply();
+    }
 }
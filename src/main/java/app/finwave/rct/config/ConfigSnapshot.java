@@ -0,0 +1,36 @@
+package app.finwave.rct.config;
+
+/**
+ * Immutable view of {@link ConfigNode} at one moment, see {@link ConfigNode#snapshot()}.
+ * <p>
+ * All values of snapshot and its subnodes come from the same version of config, so related values
+ * (like host and port) are never mixed from two reloads
+ */
+public interface ConfigSnapshot {
+
+    /**
+     * @return Version of node what this snapshot was taken from. Version grows each time when node is changed
+     */
+    long version();
+
+    <T> T getAs(Class<T> type);
+
+    String getAsString(String key);
+
+    Integer getAsInteger(String key);
+
+    Boolean getAsBoolean(String key);
+
+    Float getAsFloat(String key);
+
+    Double getAsDouble(String key);
+
+    Long getAsLong(String key);
+
+    /**
+     * Provide snapshot of subnode with the same version
+     */
+    ConfigSnapshot node(String key);
+
+    boolean exists(String key);
+}
@@ -0,0 +1,40 @@
+package app.finwave.rct.config;
+
+import java.util.function.Consumer;
+
+/**
+ * Batch of changes of {@link ConfigNode}, see {@link ConfigNode#update(Consumer)}.
+ * <p>
+ * Changes are applied when the update function returns, not when methods of transaction are called
+ */
+public interface ConfigTransaction {
+
+    /**
+     * Set string value
+     * @return This transaction
+     */
+    ConfigTransaction set(String key, String value);
+
+    /**
+     * Set number value exactly. Default transaction of {@link ConfigNode#update(Consumer)} throws {@link ArithmeticException} if the value is neither long nor double
+     * @return This transaction
+     */
+    ConfigTransaction set(String key, Number value);
+
+    /**
+     * Set boolean value
+     * @return This transaction
+     */
+    ConfigTransaction set(String key, Boolean value);
+
+    /**
+     * Remove value. Default transaction of {@link ConfigNode#update(Consumer)} can only set it to null, so the key may still exist
+     * @return This transaction
+     */
+    ConfigTransaction remove(String key);
+
+    /**
+     * Provide transaction of subnode. Its changes are applied together with this transaction
+     */
+    ConfigTransaction node(String key);
+}
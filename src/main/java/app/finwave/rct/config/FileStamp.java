@@ -0,0 +1,88 @@
+package app.finwave.rct.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modification and change time, size and identity of file. Used to recognize watcher events caused by our own writes without reading the file.
+ * <p>
+ * Equal stamps prove equal content only if the file could not be changed again within the timestamp granularity after the stamp was taken,
+ * see {@link FileStamp#ambiguous()}
+ */
+class FileStamp {
+    public final FileTime modified;
+    public final FileTime changed; // ctime can not be set by writers, equals to modified if not supported
+    public final long size;
+    public final Object fileKey;
+    public final Instant taken;
+
+    public FileStamp(FileTime modified, FileTime changed, long size, Object fileKey, Instant taken) {
+        this.modified = modified;
+        this.changed = changed;
+        this.size = size;
+        this.fileKey = fileKey;
+        this.taken = taken;
+    }
+
+    public static FileStamp of(Path path) throws IOException {
+        Instant taken = Instant.now();
+
+        try {
+            Map<String, Object> attributes = Files.readAttributes(path, "unix:lastModifiedTime,ctime,size,fileKey");
+
+            return new FileStamp((FileTime) attributes.get("lastModifiedTime"), (FileTime) attributes.get("ctime"),
+                    (Long) attributes.get("size"), attributes.get("fileKey"), taken);
+        }catch (UnsupportedOperationException e) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+            return new FileStamp(attributes.lastModifiedTime(), attributes.lastModifiedTime(), attributes.size(), attributes.fileKey(), taken);
+        }
+    }
+
+    /**
+     * @return true if the stamp was taken within the timestamp granularity of the last change,
+     * so a later write of the same size could leave the stamp unchanged
+     */
+    public boolean ambiguous() {
+        return taken.isBefore(changed.toInstant().plusNanos(granularity(changed)));
+    }
+
+    /**
+     * Timestamp granularity of the file system, estimated by the precision of the timestamp:
+     * whole seconds (FAT has 2 seconds), whole milliseconds (exFAT has 10 milliseconds) or finer
+     */
+    protected static long granularity(FileTime time) {
+        long nanos = Math.floorMod(time.to(TimeUnit.NANOSECONDS), TimeUnit.SECONDS.toNanos(1));
+
+        if (nanos == 0)
+            return TimeUnit.SECONDS.toNanos(2);
+
+        if (nanos % TimeUnit.MILLISECONDS.toNanos(1) == 0)
+            return TimeUnit.MILLISECONDS.toNanos(10);
+
+        return 0;
+    }
+
+    /**
+     * Compares the file attributes, but not the time when the stamp was taken
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FileStamp fileStamp = (FileStamp) o;
+        return size == fileStamp.size && modified.equals(fileStamp.modified) && changed.equals(fileStamp.changed) && Objects.equals(fileKey, fileStamp.fileKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(modified, changed, size, fileKey);
+    }
+}
@@ -2,92 +2,92 @@ package app.finwave.rct.config;
 
 import app.finwave.rct.reactive.InvalidationListener;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
-import static java.nio.file.StandardWatchEventKinds.*;
-
-public class FileWatcher {
-    private static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1, r -> {
-        Thread thread = new Thread(r);
-        thread.setDaemon(true);
+/**
+ * Watches files changes via {@link WatchService}.
+ * <p>
+ * Watcher works in one of two modes: event-driven, where a dedicated daemon thread blocks on {@link WatchService#take()}
+ * and dispatches events as soon as they arrive, or polling, where {@link WatchService#poll()} is called with a fixed period.
+ * <p>
+ * All watchers share one process-wide registry: each directory is registered once, whatever number of watchers use it.
+ * <p>
+ * Bursts of events of one file (truncate, write, rename) are coalesced into one listener call, see {@link FileWatcher#debounce(long, long, TimeUnit)}
+ */
+public class FileWatcher implements Closeable {
+    protected WatchRegistry registry;
+    protected long pollingPeriod;
+
+    protected List<WatchInfo> watched = new CopyOnWriteArrayList<>();
+    protected boolean closed;
+
+    protected long quietPeriod = TimeUnit.MILLISECONDS.toNanos(20);
+    protected long maxDelay = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Creates event-driven watcher. It does not use CPU while there are no events
+     * @throws IOException If an I/O error occurs
+     */
+    public FileWatcher() throws IOException {
+        this(WatchRegistry.shared, 0);
+    }
 
-        return thread;
-    });
+    /**
+     * Creates watcher what polls events with specific period
+     * @throws IOException If an I/O error occurs
+     */
+    public FileWatcher(long watchPeriod, TimeUnit timeUnit) throws IOException {
+        this(WatchRegistry.shared, Math.max(1, timeUnit.toNanos(watchPeriod)));
+    }
 
-    protected WatchService watchService = FileSystems.getDefault().newWatchService();
+    FileWatcher(WatchRegistry registry, long pollingPeriod) throws IOException {
+        this.registry = registry;
+        this.pollingPeriod = pollingPeriod;
 
-    protected HashMap<Watchable, List<WatchInfo>> keyToListeners = new HashMap<>();
+        registry.acquire(pollingPeriod);
+    }
 
-    public FileWatcher(long watchPeriod, TimeUnit timeUnit) throws IOException {
-        executorService.scheduleAtFixedRate(this::checkAll, 0, watchPeriod, timeUnit);
+    /**
+     * Set how events of one file are coalesced for files watched after this call.
+     * By default, quiet period is 20 milliseconds and max delay is 500 milliseconds
+     * @param quietPeriod Listener is called when there were no new events of the file during this period. 0 disables coalescing
+     * @param maxDelay Max delay between the first event of a burst and the listener call, even if events keep coming
+     */
+    public void debounce(long quietPeriod, long maxDelay, TimeUnit timeUnit) {
+        if (quietPeriod < 0 || maxDelay < quietPeriod)
+            throw new IllegalArgumentException("Quiet period should be non-negative and not greater than max delay");
+
+        this.quietPeriod = timeUnit.toNanos(quietPeriod);
+        this.maxDelay = timeUnit.toNanos(maxDelay);
     }
 
     public void watch(File file, InvalidationListener listener) throws IOException {
-        Path path = file.toPath();
-        Path parent = path.getParent();
+        if (closed)
+            throw new IllegalStateException("Watcher is closed");
 
-        if (!keyToListeners.containsKey(parent)) {
-            keyToListeners.put(parent, new ArrayList<>());
-            parent.register(watchService, ENTRY_MODIFY);
-        }
-
-        keyToListeners.get(parent).add(new WatchInfo(path, listener));
+        watched.add(registry.register(file.toPath(), listener, pollingPeriod, quietPeriod, maxDelay));
     }
 
-    protected void checkAll() {
-        try {
-            WatchKey key;
-            while ((key = watchService.poll()) != null) {
-                List<WatchInfo> watchInfos = keyToListeners.get(key.watchable());
-
-                if (watchInfos == null)
-                    continue;
-
-                try {
-                    for (WatchEvent<?> event : key.pollEvents()) {
-                        Object context = event.context();
-
-                        if (context instanceof Path) {
-                            Path path = (Path) context;
-
-                            Optional<WatchInfo> registered = watchInfos.stream().filter((i) -> {
-                                try {
-                                    return Files.isSameFile(path, i.filePath);
-                                } catch (IOException e) {
-                                    return false;
-                                }
-                            }).findFirst();
-
-                            if (registered.isPresent()) {
-                                registered.get().listener.invalidated();
-                                continue;
-                            }
-                        }
-
-                        watchInfos.forEach((i) -> i.listener.invalidated());
-                    }
-                }finally {
-                    key.reset();
-                }
-            }
-        }catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-}
+    /**
+     * Stop watching. Listeners will not be called after this method
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
 
-class WatchInfo {
-    public final Path filePath;
-    public final InvalidationListener listener;
+        closed = true;
 
-    public WatchInfo(Path filePath, InvalidationListener listener) {
-        this.filePath = filePath;
-        this.listener = listener;
+        watched.forEach(registry::unregister);
+        watched.clear();
+
+        registry.release(pollingPeriod);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package app.finwave.rct.config;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Polling task of one period, shared by polling watchers with this period. Fires pending files once per run
+ */
+class PollingTask {
+    public ScheduledFuture<?> future;
+    public int users;
+
+    protected ConcurrentLinkedQueue<WatchInfo> pending = new ConcurrentLinkedQueue<>();
+
+    public void markPending(WatchInfo info) {
+        if (info.pending.compareAndSet(false, true))
+            pending.add(info);
+    }
+
+    public void flush() {
+        WatchInfo info;
+
+        while ((info = pending.poll()) != null) {
+            info.pending.set(false);
+            WatchRegistry.fire(info);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package app.finwave.rct.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link ConfigSnapshot} what reads values through properties of node.
+ * Used by nodes which cannot publish their state at once.
+ * <p>
+ * Each value is read on the first request and kept, so the snapshot never changes after it was read,
+ * but values read at different moments may come from different versions of config. Version is always 0
+ */
+class PropertySnapshot implements ConfigSnapshot {
+    protected ConfigNode node;
+    protected final Map<String, Object> values = new HashMap<>(); // by type and key, may contain null
+
+    PropertySnapshot(ConfigNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public long version() {
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected synchronized <X> X read(String id, Supplier<X> reader) {
+        if (values.containsKey(id))
+            return (X) values.get(id);
+
+        X value = reader.get();
+        values.put(id, value);
+
+        return value;
+    }
+
+    @Override
+    public <T> T getAs(Class<T> type) {
+        return read("object:" + type.getName(), () -> node.getAs(type).get());
+    }
+
+    @Override
+    public String getAsString(String key) {
+        return read("string:" + key, () -> node.getAsString(key).get());
+    }
+
+    @Override
+    public Integer getAsInteger(String key) {
+        return read("int:" + key, () -> node.getAsInteger(key).get());
+    }
+
+    @Override
+    public Boolean getAsBoolean(String key) {
+        return read("boolean:" + key, () -> node.getAsBoolean(key).get());
+    }
+
+    @Override
+    public Float getAsFloat(String key) {
+        return read("float:" + key, () -> node.getAsFloat(key).get());
+    }
+
+    @Override
+    public Double getAsDouble(String key) {
+        return read("double:" + key, () -> node.getAsDouble(key).get());
+    }
+
+    @Override
+    public Long getAsLong(String key) {
+        return read("long:" + key, () -> node.getAsLong(key).get());
+    }
+
+    @Override
+    public ConfigSnapshot node(String key) {
+        return read("node:" + key, () -> new PropertySnapshot(node.node(key)));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return read("exists:" + key, () -> node.exists(key));
+    }
+}
@@ -0,0 +1,94 @@
+package app.finwave.rct.config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ConfigTransaction} what sets values through properties of node one by one.
+ * Used by nodes which do not support batch changes
+ */
+class PropertyTransaction implements ConfigTransaction {
+    protected ConfigNode node;
+    protected List<Runnable> changes;
+
+    PropertyTransaction(ConfigNode node, List<Runnable> changes) {
+        this.node = node;
+        this.changes = changes;
+    }
+
+    PropertyTransaction(ConfigNode node) {
+        this(node, new ArrayList<>());
+    }
+
+    void apply() {
+        changes.forEach(Runnable::run);
+    }
+
+    @Override
+    public ConfigTransaction set(String key, String value) {
+        changes.add(() -> node.getAsString(key).set(value));
+
+        return this;
+    }
+
+    /**
+     * Numbers what are not Integer, Long, Float or Double are set as long or double if it keeps their exact value
+     * @throws ArithmeticException If the value cannot be kept exactly by properties of node, for example BigDecimal with more digits than double has
+     */
+    @Override
+    public ConfigTransaction set(String key, Number value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+            changes.add(() -> node.getAsInteger(key).set(value.intValue()));
+        else if (value instanceof Long)
+            changes.add(() -> node.getAsLong(key).set(value.longValue()));
+        else if (value instanceof Float)
+            changes.add(() -> node.getAsFloat(key).set(value.floatValue()));
+        else if (value == null || value instanceof Double)
+            changes.add(() -> node.getAsDouble(key).set((Double) value));
+        else
+            setExact(key, value);
+
+        return this;
+    }
+
+    protected void setExact(String key, Number value) {
+        BigDecimal decimal = new BigDecimal(value.toString()); // BigInteger, BigDecimal, atomics and adders print their exact value
+
+        try {
+            long longValue = decimal.longValueExact();
+            changes.add(() -> node.getAsLong(key).set(longValue));
+
+            return;
+        }catch (ArithmeticException ignored) {}
+
+        double doubleValue = decimal.doubleValue();
+
+        if (Double.isInfinite(doubleValue) || BigDecimal.valueOf(doubleValue).compareTo(decimal) != 0) // double is written with its shortest decimal form
+            throw new ArithmeticException(value + " cannot be set exactly to " + key + ", node supports only long and double values");
+
+        changes.add(() -> node.getAsDouble(key).set(doubleValue));
+    }
+
+    @Override
+    public ConfigTransaction set(String key, Boolean value) {
+        changes.add(() -> node.getAsBoolean(key).set(value));
+
+        return this;
+    }
+
+    /**
+     * Properties of node cannot remove keys, so the value is set to null. Key may still exist after it
+     */
+    @Override
+    public ConfigTransaction remove(String key) {
+        changes.add(() -> node.getAsString(key).set((String) null));
+
+        return this;
+    }
+
+    @Override
+    public ConfigTransaction node(String key) {
+        return new PropertyTransaction(node.node(key), changes);
+    }
+}
@@ -0,0 +1,35 @@
+package app.finwave.rct.config;
+
+import app.finwave.rct.reactive.InvalidationListener;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watched file of one {@link FileWatcher} with its debounce state
+ */
+class WatchInfo {
+    public final Path filePath;
+    public final InvalidationListener listener;
+    public final PollingTask pollingTask;
+
+    public final long quietPeriod;
+    public final long maxDelay;
+
+    public final AtomicBoolean pending = new AtomicBoolean();
+    public volatile boolean removed;
+
+    protected long firstEvent;
+    protected long lastEvent;
+    protected boolean scheduled;
+    protected boolean dispatching;
+    protected boolean redispatch;
+
+    public WatchInfo(Path filePath, InvalidationListener listener, PollingTask pollingTask, long quietPeriod, long maxDelay) {
+        this.filePath = filePath;
+        this.listener = listener;
+        this.pollingTask = pollingTask;
+        this.quietPeriod = quietPeriod;
+        this.maxDelay = maxDelay;
+    }
+}
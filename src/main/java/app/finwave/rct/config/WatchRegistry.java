@@ -0,0 +1,309 @@
+package app.finwave.rct.config;
+
+import app.finwave.rct.reactive.InvalidationListener;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Process-wide registry of watched directories, shared by all {@link FileWatcher} instances.
+ * <p>
+ * Registry opens one {@link WatchService}, registers each directory once and fans events out to all listeners of this directory.
+ * Directories, polling tasks, dispatcher thread and the watch service itself are reference-counted and released when they are not used anymore.
+ * <p>
+ * Both modifications and creations are watched, so files replaced by rename (atomic writes, most editors) are tracked too.
+ * Events are routed by file name with one lookup in concurrent maps, so dispatching does not take locks or make filesystem calls.
+ * Files of event-driven watchers are invalidated immediately, files of polling watchers are marked as pending
+ * and invalidated once by the polling task of their period.
+ * <p>
+ * If file has a quiet period, a burst of its events is coalesced into one invalidation: listener is called when there were no events
+ * during the quiet period, but not later than max delay after the first event of the burst.
+ * Debounced listeners are called on dispatcher threads, so slow listeners do not stall polling and other files.
+ */
+class WatchRegistry {
+    static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1, r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    // debounced listeners read and parse files, so they run apart from polling and timers: a slow listener delays only its own file
+    static final ExecutorService dispatcher = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "rct-config-dispatcher");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    static final WatchRegistry shared = new WatchRegistry();
+
+    protected WatchService watchService;
+    protected int users;
+
+    protected Thread watchThread;
+    protected int eventDrivenUsers;
+
+    protected HashMap<Long, PollingTask> pollingTasks = new HashMap<>();
+
+    protected ConcurrentHashMap<Path, DirectoryWatch> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Start using registry
+     * @param pollingPeriod Period of polling in nanoseconds or 0 for event-driven dispatching
+     * @throws IOException If watch service cannot be opened
+     */
+    synchronized void acquire(long pollingPeriod) throws IOException {
+        if (users == 0)
+            watchService = FileSystems.getDefault().newWatchService();
+
+        users++;
+
+        if (pollingPeriod <= 0) {
+            if (eventDrivenUsers++ == 0) {
+                watchThread = new Thread(() -> takeAll(watchService), "rct-file-watcher");
+                watchThread.setDaemon(true);
+                watchThread.start();
+            }
+
+            return;
+        }
+
+        pollingTasks.computeIfAbsent(pollingPeriod, (p) -> {
+            PollingTask task = new PollingTask();
+            task.future = executorService.scheduleAtFixedRate(() -> {
+                checkAll();
+                task.flush();
+            }, 0, p, TimeUnit.NANOSECONDS);
+
+            return task;
+        }).users++;
+    }
+
+    /**
+     * Stop using registry. Same polling period as in {@link WatchRegistry#acquire(long)} should be passed
+     */
+    synchronized void release(long pollingPeriod) throws IOException {
+        if (pollingPeriod <= 0) {
+            if (--eventDrivenUsers == 0) {
+                watchThread.interrupt();
+                watchThread = null;
+            }
+        }else {
+            PollingTask task = pollingTasks.get(pollingPeriod);
+
+            if (--task.users == 0) {
+                task.future.cancel(false);
+                pollingTasks.remove(pollingPeriod);
+            }
+        }
+
+        if (--users == 0) {
+            directories.clear();
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    /**
+     * @param pollingPeriod Period of watcher, same as in {@link WatchRegistry#acquire(long)}
+     * @param quietPeriod Quiet period of file events in nanoseconds, 0 to call listener on each event
+     * @param maxDelay Max delay of listener call after the first event in nanoseconds
+     */
+    synchronized WatchInfo register(Path file, InvalidationListener listener, long pollingPeriod, long quietPeriod, long maxDelay) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        Path parent = path.getParent();
+
+        DirectoryWatch directory = directories.get(parent);
+
+        if (directory == null) {
+            directory = new DirectoryWatch(parent.register(watchService, ENTRY_MODIFY, ENTRY_CREATE));
+            directories.put(parent, directory);
+        }
+
+        WatchInfo info = new WatchInfo(path, listener, pollingTasks.get(pollingPeriod), quietPeriod, maxDelay);
+        directory.files.computeIfAbsent(path.getFileName(), (n) -> new CopyOnWriteArrayList<>()).add(info);
+
+        return info;
+    }
+
+    synchronized void unregister(WatchInfo info) {
+        Path parent = info.filePath.getParent();
+        DirectoryWatch directory = directories.get(parent);
+
+        if (directory == null)
+            return;
+
+        Path name = info.filePath.getFileName();
+        List<WatchInfo> infos = directory.files.get(name);
+
+        if (infos == null || !infos.remove(info))
+            return;
+
+        info.removed = true;
+
+        if (infos.isEmpty())
+            directory.files.remove(name);
+
+        if (directory.files.isEmpty()) {
+            directory.key.cancel();
+            directories.remove(parent);
+        }
+    }
+
+    protected void takeAll(WatchService service) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                process(service.take());
+            }
+        }catch (InterruptedException | ClosedWatchServiceException ignored) {} // not used anymore
+    }
+
+    protected void checkAll() {
+        WatchService service;
+
+        synchronized (this) {
+            service = watchService;
+        }
+
+        if (service == null)
+            return;
+
+        try {
+            WatchKey key;
+            while ((key = service.poll()) != null) {
+                process(key);
+            }
+        }catch (ClosedWatchServiceException ignored) {}
+    }
+
+    protected void process(WatchKey key) {
+        try {
+            DirectoryWatch directory = directories.get((Path) key.watchable());
+
+            if (directory == null)
+                return;
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    directory.files.values().forEach((infos) -> infos.forEach(this::invalidate));
+                    continue;
+                }
+
+                List<WatchInfo> infos = directory.files.get((Path) event.context());
+
+                if (infos != null)
+                    infos.forEach(this::invalidate);
+            }
+        }catch (Exception e) {
+            e.printStackTrace();
+        }finally {
+            key.reset();
+        }
+    }
+
+    protected void invalidate(WatchInfo info) {
+        if (info.pollingTask != null) {
+            info.pollingTask.markPending(info);
+            return;
+        }
+
+        fire(info);
+    }
+
+    static void fire(WatchInfo info) {
+        if (info.quietPeriod <= 0) {
+            dispatch(info);
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        synchronized (info) {
+            info.lastEvent = now;
+
+            if (info.scheduled)
+                return;
+
+            info.scheduled = true;
+            info.firstEvent = now;
+        }
+
+        executorService.schedule(() -> fireDebounced(info), info.quietPeriod, TimeUnit.NANOSECONDS);
+    }
+
+    protected static void fireDebounced(WatchInfo info) {
+        long delay;
+
+        synchronized (info) {
+            long deadline = Math.min(info.lastEvent + info.quietPeriod, info.firstEvent + info.maxDelay);
+            delay = deadline - System.nanoTime();
+
+            if (delay <= 0)
+                info.scheduled = false;
+        }
+
+        if (delay > 0) { // new events during the quiet period
+            executorService.schedule(() -> fireDebounced(info), delay, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        synchronized (info) {
+            if (info.dispatching) { // listener is still running, it will be called again when it ends
+                info.redispatch = true;
+                return;
+            }
+
+            info.dispatching = true;
+        }
+
+        dispatcher.execute(() -> dispatchSerially(info));
+    }
+
+    /**
+     * Call listener on dispatcher thread. Calls of one file are not run concurrently: events during the call are delivered by one more call after it
+     */
+    protected static void dispatchSerially(WatchInfo info) {
+        while (true) {
+            dispatch(info);
+
+            synchronized (info) {
+                if (!info.redispatch) {
+                    info.dispatching = false;
+                    return;
+                }
+
+                info.redispatch = false;
+            }
+        }
+    }
+
+    protected static void dispatch(WatchInfo info) {
+        if (info.removed)
+            return;
+
+        try {
+            info.listener.invalidated();
+        }catch (Exception e) { // listeners of other files and managers should be notified anyway
+            e.printStackTrace();
+        }
+    }
+}
+
+class DirectoryWatch {
+    public final WatchKey key;
+    public final ConcurrentHashMap<Path, List<WatchInfo>> files = new ConcurrentHashMap<>();
+
+    public DirectoryWatch(WatchKey key) {
+        this.key = key;
+    }
+}
@@ -0,0 +1,138 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigChange;
+import app.finwave.rct.config.ConfigChangeSet;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree of changes between two json objects.
+ * <p>
+ * Same instances are not compared: trees of {@link JsonNode} share unchanged subtrees, so diff after write visits only the changed path.
+ * Objects present in both trees are compared key by key, other values are compared by equality
+ */
+class JsonDiff {
+    protected static final JsonDiff NONE = new JsonDiff(null, null, null);
+
+    protected final ConfigChange.Type type; // null if only values under this object are changed
+    protected final JsonElement oldValue;
+    protected final JsonElement newValue;
+
+    protected LinkedHashMap<String, JsonDiff> children;
+
+    protected JsonDiff(ConfigChange.Type type, JsonElement oldValue, JsonElement newValue) {
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    static JsonDiff of(JsonObject old, JsonObject now) {
+        JsonDiff diff = compare(old == null ? new JsonObject() : old, now == null ? new JsonObject() : now);
+
+        return diff == null ? NONE : diff;
+    }
+
+    /**
+     * Diff of object where only one key is changed
+     */
+    static JsonDiff of(JsonObject old, JsonObject now, String key) {
+        JsonDiff child = compare(old == null ? null : old.get(key), now.get(key));
+
+        if (child == null)
+            return NONE;
+
+        JsonDiff diff = new JsonDiff(null, old, now);
+        diff.children = new LinkedHashMap<>();
+        diff.children.put(key, child);
+
+        return diff;
+    }
+
+    /**
+     * @return Diff or null if values are equal
+     */
+    protected static JsonDiff compare(JsonElement old, JsonElement now) {
+        if (old == now)
+            return null;
+
+        if (old == null)
+            return new JsonDiff(ConfigChange.Type.ADDED, null, now);
+
+        if (now == null)
+            return new JsonDiff(ConfigChange.Type.REMOVED, old, null);
+
+        if (old.isJsonObject() && now.isJsonObject())
+            return compareObjects(old.getAsJsonObject(), now.getAsJsonObject());
+
+        return old.equals(now) ? null : new JsonDiff(ConfigChange.Type.MODIFIED, old, now);
+    }
+
+    protected static JsonDiff compareObjects(JsonObject old, JsonObject now) {
+        LinkedHashMap<String, JsonDiff> children = null;
+
+        for (Map.Entry<String, JsonElement> entry : old.entrySet()) {
+            JsonDiff child = compare(entry.getValue(), now.get(entry.getKey()));
+
+            if (child != null) {
+                if (children == null)
+                    children = new LinkedHashMap<>();
+
+                children.put(entry.getKey(), child);
+            }
+        }
+
+        for (Map.Entry<String, JsonElement> entry : now.entrySet()) {
+            if (old.has(entry.getKey()))
+                continue;
+
+            if (children == null)
+                children = new LinkedHashMap<>();
+
+            children.put(entry.getKey(), new JsonDiff(ConfigChange.Type.ADDED, null, entry.getValue()));
+        }
+
+        if (children == null)
+            return null;
+
+        JsonDiff diff = new JsonDiff(null, old, now);
+        diff.children = children;
+
+        return diff;
+    }
+
+    boolean isEmpty() {
+        return type == null && (children == null || children.isEmpty());
+    }
+
+    /**
+     * @return Changed keys of this object with their diffs
+     */
+    Map<String, JsonDiff> children() {
+        return children == null ? Map.of() : children;
+    }
+
+    ConfigChangeSet toChangeSet(long version) {
+        ArrayList<ConfigChange> changes = new ArrayList<>();
+        collect(new ArrayList<>(), changes);
+
+        return new ConfigChangeSet(version, List.copyOf(changes));
+    }
+
+    protected void collect(ArrayList<String> path, List<ConfigChange> changes) {
+        if (type != null) {
+            changes.add(new ConfigChange(List.copyOf(path), type));
+            return;
+        }
+
+        for (Map.Entry<String, JsonDiff> entry : children().entrySet()) {
+            path.add(entry.getKey());
+            entry.getValue().collect(path, changes);
+            path.remove(path.size() - 1);
+        }
+    }
+}
@@ -1,61 +1,452 @@
 package app.finwave.rct.config.json;
 
+import app.finwave.rct.config.ConfigChangeSet;
 import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.config.ConfigSnapshot;
+import app.finwave.rct.config.ConfigTransaction;
+import app.finwave.rct.reactive.property.BooleanProperty;
+import app.finwave.rct.reactive.property.DoubleProperty;
+import app.finwave.rct.reactive.property.IntProperty;
+import app.finwave.rct.reactive.property.LongProperty;
 import app.finwave.rct.reactive.property.Property;
+import app.finwave.rct.reactive.value.Value;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
+/**
+ * {@link ConfigNode} implementation over {@link JsonObject}.
+ * <p>
+ * Node listens to the source object only once and keeps index of subscriptions by key.
+ * When the source object is changed, node compares old and new trees once and updates only properties of changed keys.
+ * Subnodes reuse their part of the diff, and unchanged subtrees shared by reference are not compared at all.
+ * <p>
+ * Properties and subnodes are cached by key and type: the same instance is returned while it lives.
+ * Property with listeners is kept by its node (and subnode by its parent while it keeps some properties),
+ * other ones are referenced weakly and collected with their subscriptions when they are not used anymore.
+ * <p>
+ * Objects of the source are never changed after they are set: write copies objects on the path to the changed value
+ * and shares the rest with the old tree. So readers of other threads see whole trees without locking,
+ * and the source object itself is a consistent snapshot of the config.
+ * <p>
+ * Writes are serialized by one lock of the whole tree (lock of lazy source, if any), so writers of different keys do not lose changes of each other.
+ * Writer what finds the lock held by another thread waits only while the holder runs, otherwise its write is applied by the holder, see {@link TreeLock}
+ */
 public class JsonNode implements ConfigNode {
     protected Property<JsonObject> object;
     protected Gson gson;
+    protected Value<Throwable> parseError;
+
+    protected volatile JsonSnapshot current; // object with its version, published together
+    protected AtomicLong versions = new AtomicLong(); // generations of the whole tree, shared with subnodes
+    protected long writeVersion = -1; // version of the write in progress, of the root only, guarded by write lock
+
+    protected LazySource lazy; // not null if source object has only subscribed values, see StreamingJsonTransformer
+    protected List<String> path = List.of();
+    protected JsonNode root = this;
+    protected TreeLock writeLock = new TreeLock(); // shared with subnodes
+
+    protected Property<ConfigChangeSet> changes = Property.of(ConfigChangeSet.EMPTY);
+    protected volatile JsonDiff offered; // diff of the next source object, computed by parent node
+
+    protected ConcurrentHashMap<String, List<Subscription<?>>> keySubscriptions = new ConcurrentHashMap<>();
+    protected List<Subscription<?>> nodeSubscriptions = new CopyOnWriteArrayList<>();
+    protected Subscription<?> holder; // subscription of parent what keeps this subnode, null for the root
+
+    protected ConcurrentHashMap<CacheKey, CachedReference> cache = new ConcurrentHashMap<>();
+    protected ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    protected final ReentrantLock cacheLock = new ReentrantLock();
 
     public JsonNode(Property<JsonObject> object, Gson gson) {
+        this(object, gson, Value.wrap(null));
+    }
+
+    /**
+     * @param parseError Error of the last parsing of the source, shared with subnodes
+     */
+    public JsonNode(Property<JsonObject> object, Gson gson, Value<Throwable> parseError) {
         this.object = object;
         this.gson = gson;
+        this.parseError = parseError;
+        this.current = new JsonSnapshot(object.get(), 0, gson);
+
+        object.addChangeListener(this::objectChanged);
+    }
+
+    /**
+     * @param lazy Source what parses values on demand
+     * @param path Path of this node from the root of source
+     * @param parent Parent node, null for the root
+     */
+    JsonNode(Property<JsonObject> object, Gson gson, Value<Throwable> parseError, LazySource lazy, List<String> path, JsonNode parent) {
+        this(object, gson, parseError);
+
+        this.lazy = lazy;
+        this.path = path;
+
+        if (parent != null) {
+            this.root = parent.root;
+            this.writeLock = parent.writeLock;
+            this.versions = parent.versions;
+            this.current = new JsonSnapshot(current.object, versions.get(), gson);
+        }else if (lazy != null)
+            this.writeLock = lazy.lock(); // lazy source is locked while it publishes parsed values
+    }
+
+    protected void objectChanged(JsonObject newObject) {
+        expungeCollected();
+
+        JsonSnapshot old = current;
+
+        if (old.object == newObject)
+            return; // same instance means change was made via this node and subscribers already notified
+
+        JsonDiff diff = offered;
+        offered = null;
+
+        if (diff == null || diff.oldValue != old.object || diff.newValue != newObject)
+            diff = JsonDiff.of(old.object, newObject);
+
+        boolean materializing = lazy != null && lazy.isMaterializing();
+        long version = old.version;
+
+        if (!diff.isEmpty() && !materializing) // subnodes are changed by parent, what has already taken the next version
+            version = root == this ? versions.incrementAndGet() : versions.get();
+
+        current = new JsonSnapshot(newObject, version, gson);
+
+        if (diff.isEmpty())
+            return;
+
+        notify(diff, newObject, null);
+
+        if (!materializing) // values parsed on demand are not changes of config
+            changes.set(diff.toChangeSet(current.version));
+    }
+
+    /**
+     * Update subscriptions of changed keys and of the whole node. Subnodes get their part of diff, so each subtree is compared once
+     * @param origin Subscription what made the change and should not be updated, or null
+     */
+    protected void notify(JsonDiff diff, JsonObject obj, Subscription<?> origin) {
+        for (Map.Entry<String, JsonDiff> entry : diff.children().entrySet()) {
+            List<Subscription<?>> subscriptions = keySubscriptions.get(entry.getKey());
+
+            if (subscriptions == null)
+                continue;
+
+            CachedReference reference = origin == null ? cache.get(new CacheKey(entry.getKey(), ConfigNode.class)) : null;
+            Object subnode = reference == null ? null : reference.get();
+
+            if (subnode instanceof JsonNode)
+                ((JsonNode) subnode).offered = entry.getValue();
+
+            subscriptions.forEach((s) -> {
+                if (s != origin)
+                    s.update(obj);
+            });
+        }
+
+        nodeSubscriptions.forEach((s) -> s.update(obj));
+    }
+
+    /**
+     * Write element to the key of copy of source object and notify other subscriptions of this key.
+     * Whole write is done under the write lock, up to the root: the next writer copies the object published by this one.
+     * Parents write the changed subnode with the version taken by the subnode, so one write is one version of the tree
+     */
+    protected void write(String key, JsonElement element, Subscription<?> origin) {
+        writeLock.write(() -> {
+            Subscription<?> skipped = writeLock.runsLeft() ? null : origin; // origin could be updated since its writer has left the write
+
+            long version = root.writeVersion;
+            boolean outermost = version < 0;
+
+            try {
+                if (outermost)
+                    version = root.writeVersion = versions.incrementAndGet();
+
+                JsonObject old = object.get();
+                JsonObject obj = old == null ? new JsonObject() : JsonTransaction.shallowCopy(old);
+                obj.add(key, element);
+
+                current = new JsonSnapshot(obj, version, gson); // subscribers are notified here, objectChanged skips the same instance
+
+                JsonDiff diff = JsonDiff.of(old, obj, key);
+
+                if (diff.isEmpty()) {
+                    nodeSubscriptions.forEach((s) -> s.update(obj));
+                }else {
+                    notify(diff, obj, skipped);
+                    changes.set(diff.toChangeSet(current.version));
+                }
+
+                object.set(obj);
+            }finally {
+                if (outermost)
+                    root.writeVersion = -1;
+            }
+        });
+    }
+
+    /**
+     * Provide cached value for key and type or create new one
+     * @param key Key of value, null for values of whole node
+     * @param type Type of value
+     * @param factory Creates value and subscribes it to this node
+     */
+    @SuppressWarnings("unchecked")
+    protected <X> X cached(String key, Class<?> type, Supplier<X> factory) {
+        CacheKey cacheKey = new CacheKey(key, type);
+
+        CachedReference reference = cache.get(cacheKey);
+        Object value = reference == null ? null : reference.get();
+
+        if (value != null)
+            return (X) value;
+
+        if (lazy != null)
+            lazy.lock().lock(); // taken before cacheLock, as lazy source is locked while notifying subscribers
+
+        cacheLock.lock();
+
+        try {
+            expungeCollected();
+
+            reference = cache.get(cacheKey);
+            value = reference == null ? null : reference.get();
+
+            if (value != null)
+                return (X) value;
+
+            X created = factory.get();
+            cache.put(cacheKey, new CachedReference(created, cacheKey, collected));
+
+            return created;
+        }finally {
+            cacheLock.unlock();
+
+            if (lazy != null) {
+                lazy.lock().unlock();
+                writeLock.applyQueued();
+            }
+        }
+    }
+
+    /**
+     * Make sure lazy source has parsed value of key, if this node has lazy source
+     * @param key Key of value, null for whole node
+     * @param whole Parse whole value or only the object itself, for subnodes
+     */
+    protected void materialize(String key, boolean whole) {
+        if (lazy == null)
+            return;
+
+        lazy.materialize(key == null ? path : append(key), whole);
+        writeLock.applyQueued();
+    }
+
+    protected List<String> append(String key) {
+        ArrayList<String> child = new ArrayList<>(path.size() + 1);
+        child.addAll(path);
+        child.add(key);
+
+        return List.copyOf(child);
+    }
+
+    /**
+     * Collect paths what have live subscribers, see {@link StreamingJsonTransformer}
+     */
+    protected void collectPaths(JsonPaths paths) {
+        for (Subscription<?> subscription : nodeSubscriptions) {
+            if (!subscription.isCollected()) {
+                paths.whole = true;
+                return;
+            }
+        }
+
+        keySubscriptions.forEach((key, subscriptions) -> {
+            CachedReference reference = cache.get(new CacheKey(key, ConfigNode.class));
+            Object subnode = reference == null ? null : reference.get();
+
+            for (Subscription<?> subscription : subscriptions) {
+                Property<?> property = subscription.property.get();
+
+                if (property == null)
+                    continue;
+
+                if (subnode instanceof JsonNode && ((JsonNode) subnode).object == property)
+                    ((JsonNode) subnode).collectPaths(paths.child(key));
+                else
+                    paths.child(key).whole = true;
+            }
+        });
+    }
+
+    /**
+     * Remove cache entries and subscriptions of collected values
+     */
+    protected void expungeCollected() {
+        Reference<?> reference;
+
+        while ((reference = collected.poll()) != null) {
+            CachedReference cached = (CachedReference) reference;
+            cache.remove(cached.key, cached);
+
+            List<Subscription<?>> subscriptions = cached.key.key == null ? nodeSubscriptions : keySubscriptions.get(cached.key.key);
+
+            if (subscriptions != null)
+                subscriptions.removeIf(Subscription::isCollected);
+        }
+    }
+
+    /**
+     * Count of kept properties of this node is changed, see {@link Subscription#observersChanged(int)}
+     */
+    protected void keptChanged(int delta) {
+        Subscription<?> parent = holder;
+
+        if (parent != null)
+            parent.observersChanged(delta);
+    }
+
+    /**
+     * @param factory Creates empty property of needed implementation
+     */
+    protected <X, P extends Property<X>> P subscribeKey(String key, Function<JsonObject, X> reader, Function<X, JsonElement> writer, Supplier<P> factory) {
+        P property = factory.get();
+        Subscription<X> subscription = subscribe(key, reader, writer, property);
+
+        property.addObserversListener(subscription::observersChanged); // listeners added by user keep the property
+
+        return property;
+    }
+
+    /**
+     * Subscribe property to the key. Subscription keeps the property only while it gets {@link Subscription#observersChanged(int)}
+     */
+    protected <X> Subscription<X> subscribe(String key, Function<JsonObject, X> reader, Function<X, JsonElement> writer, Property<X> property) {
+        JsonObject initial = current.object;
+        property.set(reader.apply(initial));
+        Subscription<X> subscription = new Subscription<>(property, reader, this::keptChanged);
+
+        property.addChangeListener((n) -> subscription.write(() -> write(key, writer.apply(n), subscription)));
+        keySubscriptions.computeIfAbsent(key, (k) -> new CopyOnWriteArrayList<>()).add(subscription);
+
+        JsonObject now = current.object;
+
+        if (now != initial) // changed while subscribing
+            subscription.update(now);
+
+        return subscription;
+    }
+
+    protected <X> Property<X> subscribeNode(Function<JsonObject, X> reader, Function<X, JsonObject> writer) {
+        JsonObject initial = current.object;
+        Property<X> property = Property.of(reader.apply(initial));
+        Subscription<X> subscription = new Subscription<>(property, reader, this::keptChanged);
+
+        property.addChangeListener((n) -> subscription.write(() -> writeLock.write(() -> object.set(writer.apply(n))))); // whole node is one write of the tree
+        property.addObserversListener(subscription::observersChanged);
+        nodeSubscriptions.add(subscription);
+
+        JsonObject now = current.object;
+
+        if (now != initial)
+            subscription.update(now);
+
+        return property;
+    }
+
+    protected <X> Property<X> subscribePrimitive(String key, Class<X> type, Function<JsonElement, X> mapper, Function<X, JsonElement> writer) {
+        return subscribePrimitive(key, type, mapper, writer, Property::create);
+    }
+
+    /**
+     * @param type Type of cached value, specialized properties are cached apart from boxed ones
+     */
+    protected <X, P extends Property<X>> P subscribePrimitive(String key, Class<?> type, Function<JsonElement, X> mapper, Function<X, JsonElement> writer, Supplier<P> factory) {
+        return cached(key, type, () -> {
+            materialize(key, true);
+
+            return subscribeKey(
+                    key,
+                    (obj) -> obj == null ? null : mapElement(obj, key, mapper),
+                    (n) -> n == null ? JsonNull.INSTANCE : writer.apply(n),
+                    factory
+            );
+        });
     }
 
     @Override
     public <T> Property<T> getAs(Class<T> type) {
-        return object.map(
-                (obj) -> {
-                    if (obj == null || obj.isEmpty())
-                        return null;
+        return cached(null, type, () -> {
+            materialize(null, true);
+
+            return subscribeNode(
+                    (obj) -> {
+                        if (obj == null || obj.isEmpty())
+                            return null;
 
-                    T value = null;
-                    try {
-                        value = gson.fromJson(obj, type);
-                    }catch (Exception ignored) {}
+                        T value = null;
+                        try {
+                            value = gson.fromJson(obj, type);
+                        }catch (Exception ignored) {}
 
-                    return value;
-                },
-                (obj) -> obj == null ? new JsonObject() : gson.toJsonTree(obj, type).getAsJsonObject()
-        );
+                        return value;
+                    },
+                    (obj) -> obj == null ? new JsonObject() : gson.toJsonTree(obj, type).getAsJsonObject()
+            );
+        });
     }
 
     @Override
     public ConfigNode node(String key) {
-        return new JsonNode(
-                object.map(
-                        (obj) -> {
-                            JsonElement element = obj == null ? null : obj.get(key);
+        return cached(key, ConfigNode.class, () -> {
+            materialize(key, false);
 
-                            return element == null ? new JsonObject() : element.getAsJsonObject();
-                        },
-                        (subObj) -> {
-                            JsonObject obj = object.get();
-                            obj.add(key, subObj);
+            Property<JsonObject> property = Property.create();
+            Subscription<JsonObject> subscription = subscribe(
+                    key,
+                    (obj) -> {
+                        JsonElement element = obj == null ? null : obj.get(key);
 
-                            return obj;
-                        }),
-                gson
-        );
+                        return element == null || !element.isJsonObject() ? new JsonObject() : element.getAsJsonObject();
+                    },
+                    (subObj) -> subObj,
+                    property
+            );
+
+            JsonNode subnode = new JsonNode(property, gson, parseError, lazy, append(key), this);
+            subnode.holder = subscription; // property keeps the subnode by its listener, so subnode is kept while it keeps own properties
+
+            return subnode;
+        });
     }
 
     @Override
     public boolean exists(String key) {
+        materialize(key, true);
+
         JsonElement element = object.get();
         if (element == null)
             return false;
@@ -63,6 +454,52 @@ public class JsonNode implements ConfigNode {
         return !element.isJsonNull() && element.isJsonObject() && element.getAsJsonObject().has(key);
     }
 
+    /**
+     * Costs one volatile read of the root snapshot. Snapshot of subnode is taken from it, so it has the version of the whole tree.
+     * With lazy source, the whole node is parsed on the first snapshot after each reload
+     */
+    @Override
+    public ConfigSnapshot snapshot() {
+        materialize(null, true);
+
+        ConfigSnapshot snapshot = root.current;
+
+        for (String key : path)
+            snapshot = snapshot.node(key);
+
+        return snapshot;
+    }
+
+    @Override
+    public Value<Throwable> parseError() {
+        return parseError;
+    }
+
+    @Override
+    public Value<ConfigChangeSet> changes() {
+        return changes;
+    }
+
+    /**
+     * Apply changes to a copy of the source object and set it to the source once.
+     * Unchanged values are shared with the old object, so subscriptions of unchanged keys are skipped by reference comparison
+     */
+    @Override
+    public void update(Consumer<ConfigTransaction> transaction) {
+        writeLock.write(() -> { // with lazy source it is the source lock: transaction should see the whole node, so it can remove values what nobody subscribed to
+            materialize(null, true);
+            apply(transaction);
+        });
+    }
+
+    protected void apply(Consumer<ConfigTransaction> transaction) {
+        JsonTransaction jsonTransaction = new JsonTransaction(object.get());
+        transaction.accept(jsonTransaction);
+
+        if (jsonTransaction.isChanged())
+            object.set(jsonTransaction.result());
+    }
+
     protected <X> X mapElement(JsonObject obj, String key, Function<JsonElement, X> mapper) {
         JsonElement element = obj.get(key);
         if (element == null)
@@ -79,79 +516,192 @@ public class JsonNode implements ConfigNode {
 
     @Override
     public Property<String> getAsString(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsString),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
-
-                    return obj;
-                }
-        );
+        return subscribePrimitive(key, String.class, JsonElement::getAsString, JsonPrimitive::new);
     }
 
     @Override
     public Property<Integer> getAsInteger(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsInt),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
-
-                    return obj;
-                }
-        );
+        return subscribePrimitive(key, Integer.class, JsonElement::getAsInt, JsonPrimitive::new);
     }
 
     @Override
     public Property<Boolean> getAsBoolean(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsBoolean),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
-
-                    return obj;
-                }
-        );
+        return subscribePrimitive(key, Boolean.class, JsonElement::getAsBoolean, JsonPrimitive::new);
     }
 
     @Override
     public Property<Float> getAsFloat(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsFloat),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
-
-                    return obj;
-                }
-        );
+        return subscribePrimitive(key, Float.class, JsonElement::getAsFloat, JsonPrimitive::new);
     }
 
     @Override
     public Property<Double> getAsDouble(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsDouble),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
-
-                    return obj;
-                }
-        );
+        return subscribePrimitive(key, Double.class, JsonElement::getAsDouble, JsonPrimitive::new);
     }
 
     @Override
     public Property<Long> getAsLong(String key) {
-        return object.map(
-                (obj) -> mapElement(obj, key, JsonElement::getAsLong),
-                (n) -> {
-                    JsonObject obj = object.get();
-                    obj.addProperty(key, n);
+        return subscribePrimitive(key, Long.class, JsonElement::getAsLong, JsonPrimitive::new);
+    }
 
-                    return obj;
-                }
-        );
+    @Override
+    public IntProperty getAsIntProperty(String key) {
+        return subscribePrimitive(key, IntProperty.class, JsonElement::getAsInt, JsonPrimitive::new, IntProperty::create);
+    }
+
+    @Override
+    public LongProperty getAsLongProperty(String key) {
+        return subscribePrimitive(key, LongProperty.class, JsonElement::getAsLong, JsonPrimitive::new, LongProperty::create);
+    }
+
+    @Override
+    public DoubleProperty getAsDoubleProperty(String key) {
+        return subscribePrimitive(key, DoubleProperty.class, JsonElement::getAsDouble, JsonPrimitive::new, DoubleProperty::create);
+    }
+
+    @Override
+    public BooleanProperty getAsBooleanProperty(String key) {
+        return subscribePrimitive(key, BooleanProperty.class, JsonElement::getAsBoolean, JsonPrimitive::new, BooleanProperty::create);
     }
 }
+
+/**
+ * Property of one subscriber with function what reads its value from the source object.
+ * <p>
+ * Property is referenced weakly while nobody observes it, so subscription does not prevent unused property from being collected.
+ * Observed property is referenced strongly, so its listeners are called even if user does not keep the property
+ */
+class Subscription<X> {
+    public final WeakReference<Property<X>> property;
+    public final Function<JsonObject, X> reader;
+
+    protected final IntConsumer keptListener;
+    protected final AtomicInteger observers = new AtomicInteger();
+    protected final ReentrantLock keepLock = new ReentrantLock();
+    protected Property<X> kept; // guarded by keepLock
+
+    protected boolean otherUpdate;
+
+    /**
+     * @param keptListener Called with +1 when subscription starts to keep the property and with -1 when it stops
+     */
+    public Subscription(Property<X> property, Function<JsonObject, X> reader, IntConsumer keptListener) {
+        this.property = new WeakReference<>(property);
+        this.reader = reader;
+        this.keptListener = keptListener;
+    }
+
+    /**
+     * Count of observers is changed: listeners of the property, or kept properties of subnode for subscription of subnode
+     */
+    public void observersChanged(int delta) {
+        int count = observers.addAndGet(delta);
+
+        if (count == 0 || (count == 1 && delta > 0))
+            updateKept();
+    }
+
+    protected void updateKept() {
+        keepLock.lock();
+
+        try {
+            Property<X> target = observers.get() > 0 ? property.get() : null;
+
+            if ((target == null) == (kept == null))
+                return;
+
+            kept = target;
+            keptListener.accept(target == null ? -1 : 1);
+        }finally {
+            keepLock.unlock();
+        }
+    }
+
+    /**
+     * Read new value from the source object. Ignored if called while this subscription writes to the source
+     */
+    public void update(JsonObject obj) {
+        Property<X> target = property.get();
+
+        if (target != null)
+            guarded(() -> target.set(reader.apply(obj)));
+    }
+
+    public boolean isCollected() {
+        return property.get() == null;
+    }
+
+    /**
+     * Run writer to the source object. Ignored if called while this subscription is updating from the source
+     */
+    public void write(Runnable writer) {
+        guarded(writer);
+    }
+
+    protected void guarded(Runnable runnable) {
+        if (otherUpdate)
+            return;
+
+        otherUpdate = true;
+
+        try {
+            runnable.run();
+        }finally {
+            otherUpdate = false;
+        }
+    }
+}
+
+class CacheKey {
+    public final String key;
+    public final Class<?> type;
+
+    public CacheKey(String key, Class<?> type) {
+        this.key = key;
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheKey cacheKey = (CacheKey) o;
+        return Objects.equals(key, cacheKey.key) && type.equals(cacheKey.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, type);
+    }
+}
+
+class CachedReference extends WeakReference<Object> {
+    public final CacheKey key;
+
+    public CachedReference(Object referent, CacheKey key, ReferenceQueue<Object> queue) {
+        super(referent, queue);
+
+        this.key = key;
+    }
+}
+
+/**
+ * Source of values what are not parsed until they are requested, see {@link StreamingJsonTransformer}
+ */
+interface LazySource {
+    /**
+     * Lock of source tree. Held while source is parsed and subscribers are notified
+     */
+    TreeLock lock();
+
+    /**
+     * Parse value of path from the last content and add it to the source tree, if it is not there yet
+     * @param whole Parse whole value or only the object itself, without its values
+     */
+    void materialize(List<String> path, boolean whole);
+
+    /**
+     * @return true while values parsed on demand are added to the source object. It is not a change of config
+     */
+    boolean isMaterializing();
+}
@@ -0,0 +1,75 @@
+package app.finwave.rct.config.json;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree of paths in json object, see {@link StreamingJsonTransformer}. Whole path includes all values under it
+ */
+class JsonPaths {
+    protected static final JsonPaths WHOLE = new JsonPaths(true);
+
+    protected boolean whole;
+    protected HashMap<String, JsonPaths> children = new HashMap<>();
+
+    JsonPaths() {
+    }
+
+    protected JsonPaths(boolean whole) {
+        this.whole = whole;
+    }
+
+    /**
+     * @return Paths under key or null if key is not included
+     */
+    JsonPaths get(String key) {
+        return whole ? WHOLE : children.get(key);
+    }
+
+    /**
+     * @return Paths under key, added if key is not included yet
+     */
+    JsonPaths child(String key) {
+        return children.computeIfAbsent(key, (k) -> new JsonPaths());
+    }
+
+    void add(List<String> path, boolean whole) {
+        JsonPaths node = this;
+
+        for (String key : path) {
+            if (node.whole)
+                return;
+
+            node = node.child(key);
+        }
+
+        node.whole |= whole;
+    }
+
+    boolean covers(List<String> path, boolean whole) {
+        JsonPaths node = this;
+
+        for (String key : path) {
+            if (node.whole)
+                return true;
+
+            node = node.children.get(key);
+
+            if (node == null)
+                return false;
+        }
+
+        return node.whole || !whole;
+    }
+
+    JsonPaths copy() {
+        JsonPaths copy = new JsonPaths(whole);
+
+        for (Map.Entry<String, JsonPaths> entry : children.entrySet()) {
+            copy.children.put(entry.getKey(), entry.getValue().copy());
+        }
+
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigSnapshot;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.function.Function;
+
+/**
+ * {@link ConfigSnapshot} over {@link JsonObject}. Objects of {@link JsonNode} are never changed after they are published,
+ * so snapshot just keeps the object with its version.
+ * <p>
+ * Snapshots are equal if they have the same version and equal content (lazy sources add parsed values without changing the version).
+ * Hash is taken from the version only: hash of json numbers is not consistent with their equality, and snapshots of one version rarely meet
+ */
+class JsonSnapshot implements ConfigSnapshot {
+    protected static final JsonObject EMPTY = new JsonObject(); // content of snapshot without object, never changed
+
+    protected final JsonObject object;
+    protected final long version;
+    protected final Gson gson;
+
+    JsonSnapshot(JsonObject object, long version, Gson gson) {
+        this.object = object;
+        this.version = version;
+        this.gson = gson;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public <T> T getAs(Class<T> type) {
+        if (object == null || object.isEmpty())
+            return null;
+
+        try {
+            return gson.fromJson(object, type);
+        }catch (Exception ignored) {}
+
+        return null;
+    }
+
+    protected <X> X map(String key, Function<JsonElement, X> mapper) {
+        JsonElement element = object == null ? null : object.get(key);
+
+        if (element == null)
+            return null;
+
+        try {
+            return mapper.apply(element);
+        }catch (Exception ignored) {}
+
+        return null;
+    }
+
+    @Override
+    public String getAsString(String key) {
+        return map(key, JsonElement::getAsString);
+    }
+
+    @Override
+    public Integer getAsInteger(String key) {
+        return map(key, JsonElement::getAsInt);
+    }
+
+    @Override
+    public Boolean getAsBoolean(String key) {
+        return map(key, JsonElement::getAsBoolean);
+    }
+
+    @Override
+    public Float getAsFloat(String key) {
+        return map(key, JsonElement::getAsFloat);
+    }
+
+    @Override
+    public Double getAsDouble(String key) {
+        return map(key, JsonElement::getAsDouble);
+    }
+
+    @Override
+    public Long getAsLong(String key) {
+        return map(key, JsonElement::getAsLong);
+    }
+
+    @Override
+    public ConfigSnapshot node(String key) {
+        JsonElement element = object == null ? null : object.get(key);
+
+        return new JsonSnapshot(element == null || !element.isJsonObject() ? new JsonObject() : element.getAsJsonObject(), version, gson);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return object != null && object.has(key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JsonSnapshot that = (JsonSnapshot) o;
+        return version == that.version && (object == that.object || content().equals(that.content()));
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(version);
+    }
+
+    protected JsonObject content() {
+        return object == null ? EMPTY : object;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonSnapshot{" +
+                "version=" + version +
+                ", object=" + object +
+                '}';
+    }
+}
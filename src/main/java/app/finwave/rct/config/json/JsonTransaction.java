@@ -0,0 +1,114 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigTransaction;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ConfigTransaction} over {@link JsonObject}.
+ * <p>
+ * Source object is not modified: on the first change, transaction makes a shallow copy of the source object
+ * and of objects on the path to it, so unchanged values are shared between old and new objects.
+ */
+class JsonTransaction implements ConfigTransaction {
+    protected JsonObject source;
+    protected JsonObject copy;
+
+    protected JsonTransaction parent;
+    protected String key;
+
+    protected HashMap<String, JsonTransaction> children = new HashMap<>();
+
+    JsonTransaction(JsonObject source) {
+        this(source, null, null);
+    }
+
+    protected JsonTransaction(JsonObject source, JsonTransaction parent, String key) {
+        this.source = source == null ? new JsonObject() : source;
+        this.parent = parent;
+        this.key = key;
+    }
+
+    static JsonObject shallowCopy(JsonObject obj) {
+        JsonObject copy = new JsonObject();
+
+        for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
+            copy.add(entry.getKey(), entry.getValue());
+        }
+
+        return copy;
+    }
+
+    /**
+     * @return New object with changes or source object if nothing is changed
+     */
+    JsonObject result() {
+        return copy == null ? source : copy;
+    }
+
+    boolean isChanged() {
+        return copy != null;
+    }
+
+    protected JsonObject writable() {
+        if (copy == null) {
+            copy = shallowCopy(source);
+
+            if (parent != null)
+                parent.writable().add(key, copy);
+        }
+
+        return copy;
+    }
+
+    protected ConfigTransaction put(String key, JsonElement element) {
+        JsonElement old = result().get(key);
+
+        if (old == element || (old != null && old.equals(element)))
+            return this;
+
+        writable().add(key, element);
+        children.remove(key);
+
+        return this;
+    }
+
+    @Override
+    public ConfigTransaction set(String key, String value) {
+        return put(key, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    @Override
+    public ConfigTransaction set(String key, Number value) {
+        return put(key, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    @Override
+    public ConfigTransaction set(String key, Boolean value) {
+        return put(key, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    @Override
+    public ConfigTransaction remove(String key) {
+        if (result().has(key)) {
+            writable().remove(key);
+            children.remove(key);
+        }
+
+        return this;
+    }
+
+    @Override
+    public ConfigTransaction node(String key) {
+        return children.computeIfAbsent(key, (k) -> {
+            JsonElement element = result().get(k);
+
+            return new JsonTransaction(element != null && element.isJsonObject() ? element.getAsJsonObject() : null, this, k);
+        });
+    }
+}
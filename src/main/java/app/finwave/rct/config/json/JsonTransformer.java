@@ -4,33 +4,104 @@ import app.finwave.rct.config.ConfigTypeTransformer;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import app.finwave.rct.config.ConfigNode;
 import app.finwave.rct.reactive.property.Property;
 
+import java.util.function.Function;
+
+/**
+ * Transforms file content to {@link JsonNode}.
+ * <p>
+ * In last known good mode, content what cannot be parsed (half-written file, typo) does not change the tree:
+ * previous object is kept, properties are not notified and the error is provided by {@link ConfigNode#parseError()}.
+ * Blank content after valid one is treated the same way and reported as {@link JsonParseException}, because files are blank for a moment while they are rewritten in place.
+ * To clear the config in this mode write an empty object
+ */
 public class JsonTransformer implements ConfigTypeTransformer {
     protected Gson gson;
+    protected boolean keepLastGood;
 
     public JsonTransformer(Gson gson) {
+        this(gson, false);
+    }
+
+    /**
+     * @param keepLastGood Keep the last valid object if content cannot be parsed. Otherwise, invalid content is read as empty object
+     */
+    public JsonTransformer(Gson gson, boolean keepLastGood) {
         this.gson = gson;
+        this.keepLastGood = keepLastGood;
     }
 
     @Override
     public ConfigNode transform(Property<String> fileContent) {
-        Property<JsonObject> json = fileContent.map(
-                (s) -> {
-                    if (s == null || s.isBlank())
-                        return new JsonObject();
-
-                    JsonObject obj = null;
-                    try {
-                        obj = gson.fromJson(s, JsonElement.class).getAsJsonObject();
-                    }catch (Exception ignored) {} // its normal if json is not valid
-
-                    return obj == null ? new JsonObject() : obj;
-                },
-                (o) -> gson.toJson(o)
-        );
-
-        return new JsonNode(json, gson);
+        Property<Throwable> error = Property.create();
+        Property<JsonObject> json = Property.of(parse(fileContent.get(), null, error));
+        ParseGuard guard = new ParseGuard();
+
+        json.addChangeListener((o) -> guard.run(() -> fileContent.set(gson.toJson(o))));
+
+        JsonNode node = new JsonNode(json, gson, error);
+
+        fileContent.addChangeListener((s) -> node.writeLock.write(() -> guard.run(() -> { // reload is a write of the whole tree, so writers of keys do not copy the object replaced by it
+            JsonObject old = json.get();
+            JsonObject obj = parse(fileContent.get(), old, error); // not the passed content: a write could replace it before this one was applied
+
+            if (obj != old)
+                json.set(obj);
+        })));
+
+        return node;
+    }
+
+    /**
+     * Error of blank content what is skipped in last known good mode
+     */
+    protected static JsonParseException blankContent() {
+        return new JsonParseException("Content is blank, the last valid object is kept");
+    }
+
+    /**
+     * @param old Current object, null while nothing is parsed yet
+     * @return Parsed object, old object to keep it or empty object
+     */
+    protected JsonObject parse(String s, JsonObject old, Property<Throwable> error) {
+        return parse(s, old, error, this::read);
+    }
+
+    /**
+     * @param reader Parses not blank content
+     */
+    protected JsonObject parse(String s, JsonObject old, Property<Throwable> error, Function<String, JsonObject> reader) {
+        if (s == null || s.isBlank()) {
+            if (keepLastGood && old != null && !old.isEmpty()) {
+                error.set(blankContent());
+
+                return old;
+            }
+
+            if (error.get() != null)
+                error.set((Throwable) null);
+
+            return new JsonObject();
+        }
+
+        try {
+            JsonObject obj = reader.apply(s);
+
+            if (error.get() != null)
+                error.set((Throwable) null);
+
+            return obj;
+        }catch (Exception e) { // its normal if json is not valid
+            error.set(e);
+        }
+
+        return keepLastGood && old != null ? old : new JsonObject();
+    }
+
+    protected JsonObject read(String s) {
+        return gson.fromJson(s, JsonElement.class).getAsJsonObject();
     }
 }
@@ -0,0 +1,21 @@
+package app.finwave.rct.config.json;
+
+/**
+ * Prevents echo between file content and json object: changes made by one side are not mapped back to it
+ */
+class ParseGuard {
+    protected boolean otherUpdate;
+
+    public void run(Runnable runnable) {
+        if (otherUpdate)
+            return;
+
+        otherUpdate = true;
+
+        try {
+            runnable.run();
+        }finally {
+            otherUpdate = false;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link JsonTransformer} what parses only values with live subscribers.
+ * <p>
+ * Content is read by {@link JsonReader}: subtrees what nobody subscribed to are skipped without building their elements,
+ * so a large config costs only the keys application reads. Other values are parsed from the last content on demand:
+ * when property or subnode is requested, when existence of key is checked or when node is updated by transaction.
+ * <p>
+ * Values parsed on demand stay parsed on next reloads, so {@link ConfigNode#changes()} reports changes of all values what were read,
+ * and changes of skipped values are not reported.
+ * <p>
+ * Writes merge changed values into the whole last content, so skipped values stay in the file.
+ * Skipped subtrees are checked only for structure, their other syntax errors are found when they are requested
+ */
+public class StreamingJsonTransformer extends JsonTransformer {
+    protected TypeAdapter<JsonElement> elementAdapter;
+
+    public StreamingJsonTransformer(Gson gson) {
+        this(gson, false);
+    }
+
+    /**
+     * @param keepLastGood See {@link JsonTransformer#JsonTransformer(Gson, boolean)}
+     */
+    public StreamingJsonTransformer(Gson gson, boolean keepLastGood) {
+        super(gson, keepLastGood);
+
+        this.elementAdapter = gson.getAdapter(JsonElement.class);
+    }
+
+    @Override
+    public ConfigNode transform(Property<String> fileContent) {
+        Property<Throwable> error = Property.create();
+        Property<JsonObject> json = Property.create();
+        LazyJson source = new LazyJson(this, json, error);
+
+        source.reparse(fileContent.get());
+
+        JsonNode root = new JsonNode(json, gson, error, source, List.of(), null);
+        source.root = root;
+
+        ParseGuard guard = new ParseGuard();
+
+        fileContent.addChangeListener((s) -> source.lock().write(() -> guard.run(() -> source.reparse(fileContent.get())))); // see JsonTransformer
+        json.addChangeListener((o) -> guard.run(() -> {
+            if (!source.isMaterializing()) // values parsed on demand are already in the file
+                fileContent.set(source.write(o));
+        }));
+
+        return root;
+    }
+
+    /**
+     * Parse only passed paths of content
+     * @return Object with values of paths, what are present in content
+     */
+    protected JsonObject read(String s, JsonPaths paths) {
+        if (paths.whole)
+            return read(s);
+
+        try {
+            JsonReader in = gson.newJsonReader(new StringReader(s));
+
+            if (in.peek() != JsonToken.BEGIN_OBJECT)
+                throw new IllegalStateException("Not a JSON Object: " + in.peek());
+
+            JsonObject obj = readObject(in, paths);
+
+            if (in.peek() != JsonToken.END_DOCUMENT)
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+
+            return obj;
+        }catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    protected JsonObject readObject(JsonReader in, JsonPaths paths) throws IOException {
+        JsonObject obj = new JsonObject();
+
+        in.beginObject();
+
+        while (in.hasNext()) {
+            String name = in.nextName();
+            JsonPaths child = paths.get(name);
+
+            if (child == null)
+                in.skipValue();
+            else if (!child.whole && in.peek() == JsonToken.BEGIN_OBJECT)
+                obj.add(name, readObject(in, child));
+            else
+                obj.add(name, elementAdapter.read(in));
+        }
+
+        in.endObject();
+
+        return obj;
+    }
+}
+
+/**
+ * Parsed part of one file. Source object contains only paths what were subscribed or requested since the last parse.
+ * Like other json sources, published objects are not changed: values parsed on demand are added to a copy
+ */
+class LazyJson implements LazySource {
+    protected final StreamingJsonTransformer transformer;
+    protected final Property<JsonObject> json;
+    protected final Property<Throwable> error;
+    protected final TreeLock lock = new TreeLock();
+
+    protected JsonNode root;
+
+    protected volatile String content; // last content what was parsed successfully
+    protected volatile JsonPaths materialized = new JsonPaths(); // paths present in source object
+    protected volatile Thread materializing; // thread what publishes values parsed on demand
+
+    LazyJson(StreamingJsonTransformer transformer, Property<JsonObject> json, Property<Throwable> error) {
+        this.transformer = transformer;
+        this.json = json;
+        this.error = error;
+    }
+
+    @Override
+    public TreeLock lock() {
+        return lock;
+    }
+
+    @Override
+    public boolean isMaterializing() {
+        return materializing == Thread.currentThread();
+    }
+
+    /**
+     * Parse new content for subscribed and materialized paths and set result to the source object
+     */
+    public void reparse(String s) {
+        lock.lock();
+
+        try {
+            if (transformer.keepLastGood && (s == null || s.isBlank()) && content != null && !content.isBlank()) {
+                error.set(JsonTransformer.blankContent()); // file is rewritten in place, see JsonTransformer
+
+                return;
+            }
+
+            JsonPaths paths = materialized.copy(); // values parsed on demand would look removed otherwise
+
+            if (root != null)
+                root.collectPaths(paths);
+
+            JsonObject old = json.get();
+            JsonObject obj = transformer.parse(s, old, error, (c) -> transformer.read(c, paths));
+
+            if (obj == old)
+                return;
+
+            content = error.get() == null ? s : null;
+            materialized = paths;
+
+            json.set(obj);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void materialize(List<String> path, boolean whole) {
+        lock.lock();
+
+        try {
+            JsonPaths current = materialized;
+
+            if (current.covers(path, whole))
+                return;
+
+            JsonPaths requested = new JsonPaths();
+            requested.add(path, whole);
+
+            String s = content;
+
+            JsonPaths updated = current.copy();
+            updated.add(path, whole);
+
+            materialized = updated;
+
+            JsonObject obj = json.get();
+
+            if (s == null || s.isBlank() || obj == null)
+                return;
+
+            JsonObject withMissing = withMissing(obj, transformer.read(s, requested));
+
+            if (withMissing == obj)
+                return;
+
+            materializing = Thread.currentThread();
+
+            try {
+                json.set(withMissing); // only added keys are changed, so only subnodes on the path are notified
+            }finally {
+                materializing = null;
+            }
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add values of parsed object what are missing in target object. Objects on the path to added values are copied, the rest is shared
+     * @return Target if nothing is added, otherwise new object
+     */
+    protected static JsonObject withMissing(JsonObject target, JsonObject parsed) {
+        JsonObject result = target;
+
+        for (Map.Entry<String, JsonElement> entry : parsed.entrySet()) {
+            JsonElement existing = target.get(entry.getKey());
+            JsonElement value = entry.getValue();
+
+            if (existing != null && existing.isJsonObject() && value.isJsonObject())
+                value = withMissing(existing.getAsJsonObject(), value.getAsJsonObject());
+            else if (existing != null)
+                continue;
+
+            if (value == existing)
+                continue;
+
+            if (result == target)
+                result = JsonTransaction.shallowCopy(target);
+
+            result.add(entry.getKey(), value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Merge changed source object into the whole last content
+     * @return New content
+     */
+    public String write(JsonObject obj) {
+        JsonPaths paths = materialized;
+        String s = content;
+
+        JsonObject result = obj;
+
+        if (!paths.whole && s != null && !s.isBlank()) {
+            result = transformer.read(s);
+            merge(result, obj, paths);
+        }
+
+        String written = transformer.gson.toJson(result);
+        content = written;
+
+        return written;
+    }
+
+    /**
+     * Replace values of materialized paths in the whole object by values of source object
+     */
+    protected static void merge(JsonObject whole, JsonObject obj, JsonPaths paths) {
+        Set<String> keys = new HashSet<>(paths.children.keySet());
+        keys.addAll(obj.keySet()); // values added by writes
+
+        for (String key : keys) {
+            JsonPaths child = paths.get(key);
+            JsonElement value = obj.get(key);
+            JsonElement old = whole.get(key);
+
+            if (child != null && !child.whole && value != null && value.isJsonObject() && old != null && old.isJsonObject())
+                merge(old.getAsJsonObject(), value.getAsJsonObject(), child);
+            else if (value != null)
+                whole.add(key, value);
+            else if (child != null)
+                whole.remove(key);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package app.finwave.rct.config.json;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write lock of one config tree.
+ * <p>
+ * Holder of the lock notifies properties of the tree, and properties call their listeners under their own locks.
+ * So a writer, what is called by a listener of its property, cannot simply wait for the lock: the holder may be going to update this property.
+ * Writer waits while the holder runs, but if the holder is blocked (it may wait for this writer), the writer leaves its write in the queue and returns.
+ * Left writes are applied by the holder before it releases the lock
+ */
+@SuppressWarnings("serial") // never serialized
+class TreeLock extends ReentrantLock {
+    protected static final long CHECK_PERIOD = TimeUnit.MILLISECONDS.toNanos(1);
+
+    protected final ConcurrentLinkedQueue<QueuedWrite> queue = new ConcurrentLinkedQueue<>(); // waiting and left writes
+    protected QueuedWrite running; // left write what is applied by the holder, guarded by this lock
+
+    /**
+     * Run write under this lock. Nested writes of the holder are run immediately
+     */
+    public void write(Runnable write) {
+        if (isHeldByCurrentThread()) {
+            write.run();
+
+            return;
+        }
+
+        if (queue.isEmpty() && tryLock()) {
+            try {
+                write.run();
+            }finally {
+                release();
+            }
+
+            return;
+        }
+
+        QueuedWrite queued = new QueuedWrite(write, Thread.currentThread());
+        queue.add(queued);
+
+        int blockedChecks = 0;
+
+        while (!tryLock()) {
+            Thread holder = getOwner();
+            blockedChecks = holder != null && blocked(holder) ? blockedChecks + 1 : 0;
+
+            if (blockedChecks > 1) { // blocked twice in a row, not just on a short lock
+                queued.left = true;
+                applyQueued(); // holder could release the lock before it has seen the write
+
+                return;
+            }
+
+            LockSupport.parkNanos(this, CHECK_PERIOD);
+        }
+
+        try {
+            queue.remove(queued);
+            runLeft(); // left before this write
+            write.run();
+        }finally {
+            release();
+        }
+    }
+
+    /**
+     * Apply left writes, unless this lock is held. Should be called after releasing the lock taken without {@link TreeLock#write(Runnable)}
+     */
+    public void applyQueued() {
+        if (isHeldByCurrentThread())
+            return;
+
+        while (hasLeft() && tryLock()) {
+            try {
+                runLeft();
+            }finally {
+                unlock();
+            }
+        }
+
+        queue.forEach((w) -> LockSupport.unpark(w.writer));
+    }
+
+    /**
+     * @return true if the running write was left by its writer. Then values what the writer has set could be changed since, so they should be updated
+     */
+    public boolean runsLeft() {
+        return running != null;
+    }
+
+    protected void release() {
+        try {
+            runLeft();
+        }finally {
+            unlock();
+            applyQueued(); // writes left while the lock is released
+        }
+    }
+
+    protected void runLeft() {
+        for (QueuedWrite write : queue) {
+            if (!write.left || !queue.remove(write))
+                continue;
+
+            running = write;
+
+            try {
+                write.write.run();
+            }catch (RuntimeException e) {
+                e.printStackTrace(); // writer has already returned
+            }finally {
+                running = null;
+            }
+        }
+    }
+
+    protected boolean hasLeft() {
+        for (QueuedWrite write : queue) {
+            if (write.left)
+                return true;
+        }
+
+        return false;
+    }
+
+    protected static boolean blocked(Thread thread) {
+        Thread.State state = thread.getState();
+
+        return state == Thread.State.BLOCKED || state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+    }
+}
+
+class QueuedWrite {
+    public final Runnable write;
+    public final Thread writer;
+
+    public volatile boolean left; // writer has returned, the write is applied by the holder
+
+    public QueuedWrite(Runnable write, Thread writer) {
+        this.write = write;
+        this.writer = writer;
+    }
+}
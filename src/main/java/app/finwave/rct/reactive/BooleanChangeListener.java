@@ -0,0 +1,8 @@
+package app.finwave.rct.reactive;
+
+/**
+ * {@link ChangeListener} of boolean value, what gets new value without boxing
+ */
+public interface BooleanChangeListener {
+    void changed(boolean newValue);
+}
@@ -0,0 +1,83 @@
+package app.finwave.rct.reactive;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records values read by current thread while a tracked supplier runs.
+ * <p>
+ * Values report their reads with {@link DependencyTracker#read(Object)}. While no supplier is tracked in the process,
+ * it costs one volatile read. Values what recompute themselves should {@link DependencyTracker#pause()} tracking,
+ * so only direct reads of the supplier are recorded
+ */
+public class DependencyTracker {
+    protected static final AtomicInteger active = new AtomicInteger();
+    protected static final ThreadLocal<DependencyTracker> current = new ThreadLocal<>();
+
+    protected final DependencyTracker previous;
+    protected final Set<Object> read = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    protected DependencyTracker(DependencyTracker previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Start recording reads of current thread. Each call should be followed by {@link DependencyTracker#stop()} in finally block
+     */
+    public static DependencyTracker start() {
+        active.incrementAndGet();
+
+        DependencyTracker tracker = new DependencyTracker(current.get());
+        current.set(tracker);
+
+        return tracker;
+    }
+
+    public void stop() {
+        current.set(previous);
+        active.decrementAndGet();
+    }
+
+    /**
+     * @return Values read since start, in no particular order
+     */
+    public Set<Object> read() {
+        return read;
+    }
+
+    /**
+     * Record read of value, if a supplier is tracked by current thread
+     */
+    public static void read(Object value) {
+        if (active.get() == 0)
+            return;
+
+        DependencyTracker tracker = current.get();
+
+        if (tracker != null)
+            tracker.read.add(value);
+    }
+
+    /**
+     * Stop recording until {@link DependencyTracker#resume(DependencyTracker)}. Used while value recomputes itself
+     * @return Paused tracker or null
+     */
+    public static DependencyTracker pause() {
+        if (active.get() == 0)
+            return null;
+
+        DependencyTracker tracker = current.get();
+
+        if (tracker != null)
+            current.set(null);
+
+        return tracker;
+    }
+
+    public static void resume(DependencyTracker paused) {
+        if (paused != null)
+            current.set(paused);
+    }
+}
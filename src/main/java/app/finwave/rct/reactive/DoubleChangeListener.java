@@ -0,0 +1,8 @@
+package app.finwave.rct.reactive;
+
+/**
+ * {@link ChangeListener} of double value, what gets new value without boxing
+ */
+public interface DoubleChangeListener {
+    void changed(double newValue);
+}
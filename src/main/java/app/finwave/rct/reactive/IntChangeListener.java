@@ -0,0 +1,8 @@
+package app.finwave.rct.reactive;
+
+/**
+ * {@link ChangeListener} of int value, what gets new value without boxing
+ */
+public interface IntChangeListener {
+    void changed(int newValue);
+}
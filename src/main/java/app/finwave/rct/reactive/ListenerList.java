@@ -0,0 +1,146 @@
+package app.finwave.rct.reactive;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Copy-on-write container of listeners.
+ * <p>
+ * Iteration goes over an immutable array snapshot without locking and allocation, so listeners may add or remove listeners while being notified:
+ * added ones are called since the next notification, removed ones are not called anymore.
+ * <p>
+ * Each added listener gets its own entry what is {@link ListenerRemover}: removal just marks the entry, so it takes amortized O(1).
+ * Marked entries are dropped from the array when they are more than a half of it
+ * @param <L> Listener type
+ */
+public class ListenerList<L> {
+    protected static final Entry<?>[] EMPTY = new Entry<?>[0];
+
+    protected volatile Entry<L>[] entries = empty();
+    protected int removed;
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected final IntConsumer sizeListener;
+
+    public ListenerList() {
+        this(null);
+    }
+
+    /**
+     * @param sizeListener Called with +1 after each addition and with -1 after each removal, outside the lock.
+     *                     Lets owner know when it gets the first listener and loses the last one
+     */
+    public ListenerList(IntConsumer sizeListener) {
+        this.sizeListener = sizeListener;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <L> Entry<L>[] empty() {
+        return (Entry<L>[]) EMPTY;
+    }
+
+    /**
+     * @return {@link ListenerRemover} of this listener
+     */
+    public ListenerRemover add(L listener) {
+        Entry<L> entry = new Entry<>(this, listener);
+
+        lock.lock();
+
+        try {
+            Entry<L>[] current = entries;
+            Entry<L>[] copy = Arrays.copyOf(current, current.length + 1);
+            copy[current.length] = entry;
+
+            entries = copy;
+        }finally {
+            lock.unlock();
+        }
+
+        if (sizeListener != null)
+            sizeListener.accept(1);
+
+        return entry;
+    }
+
+    /**
+     * Call action for each listener what was added before this call and is not removed
+     */
+    public void forEach(Consumer<L> action) {
+        for (Entry<L> entry : entries) {
+            if (!entry.removed)
+                action.accept(entry.listener);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        Entry<L>[] current = entries;
+        int size = 0;
+
+        for (Entry<L> entry : current) {
+            if (!entry.removed)
+                size++;
+        }
+
+        return size;
+    }
+
+    protected void removed(Entry<L> entry) {
+        lock.lock();
+
+        try {
+            if (entry.removed)
+                return;
+
+            entry.removed = true;
+            removed++;
+
+            Entry<L>[] current = entries;
+
+            if (removed * 2 > current.length)
+                compact(current);
+        }finally {
+            lock.unlock();
+        }
+
+        if (sizeListener != null)
+            sizeListener.accept(-1);
+    }
+
+    protected void compact(Entry<L>[] current) {
+        Entry<L>[] compacted = Arrays.copyOf(current, current.length - removed);
+        int i = 0;
+
+        for (Entry<L> entry : current) {
+            if (!entry.removed)
+                compacted[i++] = entry;
+        }
+
+        entries = i == 0 ? empty() : compacted;
+        removed = 0;
+    }
+
+    protected static class Entry<L> implements ListenerRemover {
+        protected final ListenerList<L> list;
+        protected final L listener;
+
+        protected volatile boolean removed;
+
+        protected Entry(ListenerList<L> list, L listener) {
+            this.list = list;
+            this.listener = listener;
+        }
+
+        @Override
+        public void remove() {
+            if (!removed)
+                list.removed(this);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package app.finwave.rct.reactive;
+
+/**
+ * {@link ChangeListener} of long value, what gets new value without boxing
+ */
+public interface LongChangeListener {
+    void changed(long newValue);
+}
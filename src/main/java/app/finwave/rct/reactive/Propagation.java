@@ -0,0 +1,140 @@
+package app.finwave.rct.reactive;
+
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Per-thread propagation of changes found while values are recomputed.
+ * <p>
+ * Recomputing a value pulls its dependencies, and they may find their own changes. Their change listeners are not called in the middle:
+ * notifications are collected until the outermost recompute ends and then delivered in order of rank (dependencies before dependents),
+ * once per value with its latest value. So listeners never see a half-updated graph and cannot start the same recompute again.
+ * <p>
+ * Changes made by set() are delivered immediately as before, because writers rely on synchronous listeners
+ */
+public class Propagation {
+    protected static final ThreadLocal<Propagation> current = new ThreadLocal<>();
+
+    protected int depth;
+    protected long sequence;
+
+    protected PriorityQueue<Notification<?>> queue;
+    protected IdentityHashMap<Object, Notification<?>> pending;
+
+    /**
+     * Start recomputing. Each call should be followed by {@link Propagation#exit()} in finally block
+     * @return Propagation of current thread
+     */
+    public static Propagation enter() {
+        Propagation propagation = current.get();
+
+        if (propagation == null) {
+            propagation = new Propagation();
+            current.set(propagation);
+        }
+
+        propagation.depth++;
+
+        return propagation;
+    }
+
+    /**
+     * End recomputing. When the outermost recompute ends, collected notifications are delivered
+     */
+    public void exit() {
+        if (--depth > 0)
+            return;
+
+        current.remove(); // listeners start their own propagation
+        flush();
+    }
+
+    /**
+     * Notify listeners of changed value. Inside recompute notification is deferred, otherwise listeners are called immediately
+     * @param node Changed value, notifications of one value are merged
+     * @param rank Rank of value, see {@link app.finwave.rct.reactive.value.Value#rank()}
+     */
+    public static <T> void changed(Object node, int rank, ListenerList<ChangeListener<T>> listeners, T value) {
+        Propagation propagation = current.get();
+
+        if (propagation == null) {
+            listeners.forEach((l) -> l.changed(value));
+            return;
+        }
+
+        propagation.defer(node, rank, listeners, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> void defer(Object node, int rank, ListenerList<ChangeListener<T>> listeners, T value) {
+        if (queue == null) {
+            queue = new PriorityQueue<>();
+            pending = new IdentityHashMap<>();
+        }
+
+        Notification<T> notification = (Notification<T>) pending.get(node);
+
+        if (notification != null) {
+            notification.value = value;
+            return;
+        }
+
+        notification = new Notification<>(node, rank, sequence++, listeners, value);
+        pending.put(node, notification);
+        queue.add(notification);
+    }
+
+    protected void flush() {
+        if (queue == null)
+            return;
+
+        RuntimeException exception = null;
+        Notification<?> notification;
+
+        while ((notification = queue.poll()) != null) {
+            pending.remove(notification.node);
+
+            try {
+                notification.deliver();
+            }catch (RuntimeException e) { // listeners of other values should be notified anyway
+                if (exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+
+        if (exception != null)
+            throw exception;
+    }
+
+    protected static class Notification<T> implements Comparable<Notification<?>> {
+        protected final Object node;
+        protected final int rank;
+        protected final long sequence;
+        protected final ListenerList<ChangeListener<T>> listeners;
+
+        protected T value;
+
+        protected Notification(Object node, int rank, long sequence, ListenerList<ChangeListener<T>> listeners, T value) {
+            this.node = node;
+            this.rank = rank;
+            this.sequence = sequence;
+            this.listeners = listeners;
+            this.value = value;
+        }
+
+        protected void deliver() {
+            T delivered = value;
+
+            listeners.forEach((l) -> l.changed(delivered));
+        }
+
+        @Override
+        public int compareTo(Notification<?> o) {
+            int byRank = Integer.compare(rank, o.rank);
+
+            return byRank != 0 ? byRank : Long.compare(sequence, o.sequence);
+        }
+    }
+}
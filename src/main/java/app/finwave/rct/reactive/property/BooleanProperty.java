@@ -0,0 +1,65 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.BooleanChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+import java.util.function.Function;
+
+/**
+ * {@link Property} of boolean with primitive accessors. Reading of valid value does not allocate.
+ * <p>
+ * Null value is read as false
+ */
+public interface BooleanProperty extends Property<Boolean> {
+
+    /**
+     * Create new property with null value
+     * @return New empty property
+     */
+    static BooleanProperty create() {
+        var prop = new BooleanPropertyImpl();
+        prop.set((Boolean) null);
+
+        return prop;
+    }
+
+    /**
+     * Create new property. See {@link BooleanProperty#setBoolean(boolean)}
+     * @return New property
+     */
+    static BooleanProperty of(boolean value) {
+        var prop = new BooleanPropertyImpl();
+        prop.setBoolean(value);
+
+        return prop;
+    }
+
+    /**
+     * Create new property what is bound to the boxed one in both directions, like {@link Property#map(Function, Function)}
+     * @return New property
+     */
+    static BooleanProperty of(Property<Boolean> source) {
+        return PropertyImpl.bind(source, new BooleanPropertyImpl(), Function.identity(), Function.identity());
+    }
+
+    /**
+     * @return Current value or false if it is null
+     */
+    boolean getBoolean();
+
+    /**
+     * Like {@link Property#getOr(Object)}, but without boxing when value is present
+     * @return Current value. If value is null, defaultValue will be set
+     */
+    boolean getBooleanOr(boolean defaultValue);
+
+    /**
+     * Set new value. See {@link Property#set(Object)}
+     */
+    void setBoolean(boolean value);
+
+    /**
+     * @param listener Listener what gets new value, or false if value is null
+     */
+    ListenerRemover addBooleanChangeListener(BooleanChangeListener listener);
+}
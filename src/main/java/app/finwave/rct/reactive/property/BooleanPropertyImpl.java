@@ -0,0 +1,36 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.BooleanChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+/**
+ * {@link BooleanProperty} implementation. Value is stored by {@link PropertyImpl} snapshot, so primitive read is a volatile read and unboxing of its field
+ */
+class BooleanPropertyImpl extends PropertyImpl<Boolean> implements BooleanProperty {
+    BooleanPropertyImpl() {
+    }
+
+    @Override
+    public boolean getBoolean() {
+        Boolean value = get();
+
+        return value == null ? false : value;
+    }
+
+    @Override
+    public boolean getBooleanOr(boolean defaultValue) {
+        Boolean value = get();
+
+        return value != null ? value : getOr(defaultValue);
+    }
+
+    @Override
+    public void setBoolean(boolean value) {
+        set((Boolean) value);
+    }
+
+    @Override
+    public ListenerRemover addBooleanChangeListener(BooleanChangeListener listener) {
+        return addChangeListener((n) -> listener.changed(n == null ? false : n));
+    }
+}
@@ -0,0 +1,65 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.DoubleChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+import java.util.function.Function;
+
+/**
+ * {@link Property} of double with primitive accessors. Reading of valid value does not allocate.
+ * <p>
+ * Null value is read as 0
+ */
+public interface DoubleProperty extends Property<Double> {
+
+    /**
+     * Create new property with null value
+     * @return New empty property
+     */
+    static DoubleProperty create() {
+        var prop = new DoublePropertyImpl();
+        prop.set((Double) null);
+
+        return prop;
+    }
+
+    /**
+     * Create new property. See {@link DoubleProperty#setDouble(double)}
+     * @return New property
+     */
+    static DoubleProperty of(double value) {
+        var prop = new DoublePropertyImpl();
+        prop.setDouble(value);
+
+        return prop;
+    }
+
+    /**
+     * Create new property what is bound to the boxed one in both directions, like {@link Property#map(Function, Function)}
+     * @return New property
+     */
+    static DoubleProperty of(Property<Double> source) {
+        return PropertyImpl.bind(source, new DoublePropertyImpl(), Function.identity(), Function.identity());
+    }
+
+    /**
+     * @return Current value or 0 if it is null
+     */
+    double getDouble();
+
+    /**
+     * Like {@link Property#getOr(Object)}, but without boxing when value is present
+     * @return Current value. If value is null, defaultValue will be set
+     */
+    double getDoubleOr(double defaultValue);
+
+    /**
+     * Set new value. See {@link Property#set(Object)}
+     */
+    void setDouble(double value);
+
+    /**
+     * @param listener Listener what gets new value, or 0 if value is null
+     */
+    ListenerRemover addDoubleChangeListener(DoubleChangeListener listener);
+}
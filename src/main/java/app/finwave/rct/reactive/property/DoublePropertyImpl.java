@@ -0,0 +1,36 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.DoubleChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+/**
+ * {@link DoubleProperty} implementation. Value is stored by {@link PropertyImpl} snapshot, so primitive read is a volatile read and unboxing of its field
+ */
+class DoublePropertyImpl extends PropertyImpl<Double> implements DoubleProperty {
+    DoublePropertyImpl() {
+    }
+
+    @Override
+    public double getDouble() {
+        Double value = get();
+
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public double getDoubleOr(double defaultValue) {
+        Double value = get();
+
+        return value != null ? value : getOr(defaultValue);
+    }
+
+    @Override
+    public void setDouble(double value) {
+        set((Double) value);
+    }
+
+    @Override
+    public ListenerRemover addDoubleChangeListener(DoubleChangeListener listener) {
+        return addChangeListener((n) -> listener.changed(n == null ? 0 : n));
+    }
+}
@@ -0,0 +1,65 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.IntChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+import java.util.function.Function;
+
+/**
+ * {@link Property} of int with primitive accessors. Reading of valid value does not allocate.
+ * <p>
+ * Null value is read as 0
+ */
+public interface IntProperty extends Property<Integer> {
+
+    /**
+     * Create new property with null value
+     * @return New empty property
+     */
+    static IntProperty create() {
+        var prop = new IntPropertyImpl();
+        prop.set((Integer) null);
+
+        return prop;
+    }
+
+    /**
+     * Create new property. See {@link IntProperty#setInt(int)}
+     * @return New property
+     */
+    static IntProperty of(int value) {
+        var prop = new IntPropertyImpl();
+        prop.setInt(value);
+
+        return prop;
+    }
+
+    /**
+     * Create new property what is bound to the boxed one in both directions, like {@link Property#map(Function, Function)}
+     * @return New property
+     */
+    static IntProperty of(Property<Integer> source) {
+        return PropertyImpl.bind(source, new IntPropertyImpl(), Function.identity(), Function.identity());
+    }
+
+    /**
+     * @return Current value or 0 if it is null
+     */
+    int getInt();
+
+    /**
+     * Like {@link Property#getOr(Object)}, but without boxing when value is present
+     * @return Current value. If value is null, defaultValue will be set
+     */
+    int getIntOr(int defaultValue);
+
+    /**
+     * Set new value. See {@link Property#set(Object)}
+     */
+    void setInt(int value);
+
+    /**
+     * @param listener Listener what gets new value, or 0 if value is null
+     */
+    ListenerRemover addIntChangeListener(IntChangeListener listener);
+}
@@ -0,0 +1,36 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.IntChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+/**
+ * {@link IntProperty} implementation. Value is stored by {@link PropertyImpl} snapshot, so primitive read is a volatile read and unboxing of its field
+ */
+class IntPropertyImpl extends PropertyImpl<Integer> implements IntProperty {
+    IntPropertyImpl() {
+    }
+
+    @Override
+    public int getInt() {
+        Integer value = get();
+
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public int getIntOr(int defaultValue) {
+        Integer value = get();
+
+        return value != null ? value : getOr(defaultValue);
+    }
+
+    @Override
+    public void setInt(int value) {
+        set((Integer) value);
+    }
+
+    @Override
+    public ListenerRemover addIntChangeListener(IntChangeListener listener) {
+        return addChangeListener((n) -> listener.changed(n == null ? 0 : n));
+    }
+}
@@ -0,0 +1,65 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.LongChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+import java.util.function.Function;
+
+/**
+ * {@link Property} of long with primitive accessors. Reading of valid value does not allocate.
+ * <p>
+ * Null value is read as 0
+ */
+public interface LongProperty extends Property<Long> {
+
+    /**
+     * Create new property with null value
+     * @return New empty property
+     */
+    static LongProperty create() {
+        var prop = new LongPropertyImpl();
+        prop.set((Long) null);
+
+        return prop;
+    }
+
+    /**
+     * Create new property. See {@link LongProperty#setLong(long)}
+     * @return New property
+     */
+    static LongProperty of(long value) {
+        var prop = new LongPropertyImpl();
+        prop.setLong(value);
+
+        return prop;
+    }
+
+    /**
+     * Create new property what is bound to the boxed one in both directions, like {@link Property#map(Function, Function)}
+     * @return New property
+     */
+    static LongProperty of(Property<Long> source) {
+        return PropertyImpl.bind(source, new LongPropertyImpl(), Function.identity(), Function.identity());
+    }
+
+    /**
+     * @return Current value or 0 if it is null
+     */
+    long getLong();
+
+    /**
+     * Like {@link Property#getOr(Object)}, but without boxing when value is present
+     * @return Current value. If value is null, defaultValue will be set
+     */
+    long getLongOr(long defaultValue);
+
+    /**
+     * Set new value. See {@link Property#set(Object)}
+     */
+    void setLong(long value);
+
+    /**
+     * @param listener Listener what gets new value, or 0 if value is null
+     */
+    ListenerRemover addLongChangeListener(LongChangeListener listener);
+}
@@ -0,0 +1,36 @@
+package app.finwave.rct.reactive.property;
+
+import app.finwave.rct.reactive.LongChangeListener;
+import app.finwave.rct.reactive.ListenerRemover;
+
+/**
+ * {@link LongProperty} implementation. Value is stored by {@link PropertyImpl} snapshot, so primitive read is a volatile read and unboxing of its field
+ */
+class LongPropertyImpl extends PropertyImpl<Long> implements LongProperty {
+    LongPropertyImpl() {
+    }
+
+    @Override
+    public long getLong() {
+        Long value = get();
+
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public long getLongOr(long defaultValue) {
+        Long value = get();
+
+        return value != null ? value : getOr(defaultValue);
+    }
+
+    @Override
+    public void setLong(long value) {
+        set((Long) value);
+    }
+
+    @Override
+    public ListenerRemover addLongChangeListener(LongChangeListener listener) {
+        return addChangeListener((n) -> listener.changed(n == null ? 0 : n));
+    }
+}
@@ -53,6 +53,28 @@ public interface Property<T> extends Value<T> {
         return prop;
     }
 
+    /**
+     * Create new property what follows the value like {@link Property#of(Value)}, but the value references the property weakly,
+     * so the property is collected when it is not used anymore even if the value lives longer
+     * @return New property
+     */
+    static <X> Property<X> weakOf(Value<X> value) {
+        var prop = new PropertyImpl<X>();
+        prop.weak = true;
+        prop.set(value);
+
+        return prop;
+    }
+
+    /**
+     * Create new property by supplier. As {@link Property#of(Supplier, Value[])}, but dependencies reference the property weakly,
+     * see {@link Value#weakDynamic(Supplier, Value[])}
+     * @return New property
+     */
+    static <X> Property<X> weakOf(Supplier<X> supplier, Value<?>... dependencies) {
+        return weakOf(Value.weakDynamic(supplier, dependencies));
+    }
+
     /**
      * Create new property by supplier. As {@link Value#dynamic(Supplier, Value[])}, but without dependencies
      * @return New property
@@ -97,6 +119,8 @@ public interface Property<T> extends Value<T> {
      * If this property is changed, then the value of the child will be set via fromSource function.
      * <p>
      * If child property is changed, then the value of this property will be set via toSource function.
+     * <p>
+     * This property keeps the child while this property lives, see {@link Property#weakMap(Function, Function)} otherwise
      * @param fromSource Mapping function from source to child property
      * @param toSource Mapping function from child to source property
      * @return Child property
@@ -105,11 +129,28 @@ public interface Property<T> extends Value<T> {
     <X> Property<X> map(Function<T, X> fromSource, Function<X, T> toSource);
 
     /**
-     * Map method as {@link Property#map(Function, Function)} but return property with provided change listener what called only for outside set() call, not because set new value from mapper
+     * Map method as {@link Property#map(Function, Function)}, but this property references the child weakly,
+     * so the child is collected when it is not used anymore. Keep a reference to the child while you need it to follow this property
+     * @return Child property
+     * @param <X> Child property type
+     */
+    <X> Property<X> weakMap(Function<T, X> fromSource, Function<X, T> toSource);
+
+    /**
+     * Map method as {@link Property#map(Function, Function)} but return property with provided change listener what called only for outside set() call, not because set new value from mapper.
+     * This property keeps the child and its listener, see {@link Property#weakMapWithListener(Function, ChangeListener)} otherwise
      * @param mapper Mapping function from source to child property
      * @param childListener Child changes listener
      * @return Child property
      * @param <X> Child property type
      */
     <X> Property<X> mapWithListener(Function<T, X> mapper, ChangeListener<X> childListener);
+
+    /**
+     * Map method as {@link Property#mapWithListener(Function, ChangeListener)}, but this property references the child weakly like {@link Property#weakMap(Function, Function)}:
+     * child listener is not called anymore after the child is collected
+     * @return Child property
+     * @param <X> Child property type
+     */
+    <X> Property<X> weakMapWithListener(Function<T, X> mapper, ChangeListener<X> childListener);
 }
@@ -1,42 +1,110 @@
 package app.finwave.rct.reactive.property;
 
 import app.finwave.rct.reactive.ChangeListener;
+import app.finwave.rct.reactive.DependencyTracker;
 import app.finwave.rct.reactive.InvalidationListener;
+import app.finwave.rct.reactive.ListenerList;
 import app.finwave.rct.reactive.ListenerRemover;
+import app.finwave.rct.reactive.Propagation;
 import app.finwave.rct.reactive.value.Value;
 
-import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
-
+import java.util.function.IntConsumer;
+
+/**
+ * {@link Property} implementation.
+ * <p>
+ * Last value and its validity are published together as one immutable {@link State}, so reading of valid value
+ * is a single volatile read without locking. Lock is taken only to recompute invalid value and to change the property.
+ * <p>
+ * {@link ReentrantLock} is used instead of monitors, so virtual threads are not pinned when listeners block (e.g. write files).
+ * Listeners are called under the lock to keep order of notifications.
+ * Changes found while recomputing are delivered by {@link Propagation} after the recompute in topological order
+ */
 class PropertyImpl<T> implements Property<T> {
     protected Value<T> value;
-    protected T lastValue;
 
     protected ListenerRemover followRemover;
+    protected boolean weak; // followed value references this property weakly
 
-    protected boolean isValid;
+    protected volatile State<T> state = State.empty();
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected int mappedRank = -1; // rank of parent for children of map()
+    protected volatile long version;
+    protected final AtomicLong invalidations = new AtomicLong(); // grows on each invalidate(), even if property is already invalid
 
-    protected ArrayList<ChangeListener<T>> changeListeners = new ArrayList<>();
-    protected ArrayList<InvalidationListener> invalidationListeners = new ArrayList<>();
+    protected ListenerList<IntConsumer> observersListeners = new ListenerList<>();
+    protected ListenerList<ChangeListener<T>> changeListeners = new ListenerList<>(this::observersChanged);
+    protected ListenerList<InvalidationListener> invalidationListeners = new ListenerList<>(this::observersChanged);
 
     PropertyImpl() {
     }
 
     @Override
-    public synchronized T getOr(T defaultValue) {
+    public T getOr(T defaultValue) {
         T value = get();
 
-        if (value == null) {
-            value = defaultValue;
-            set(value);
+        if (value != null)
+            return value;
+
+        lock.lock();
+
+        try {
+            value = get();
+
+            if (value == null) {
+                value = defaultValue;
+                set(value);
+            }
+
+            return value;
+        }finally {
+            lock.unlock();
         }
+    }
 
-        return value;
+    @Override
+    public void set(Value<T> value) {
+        lock.lock();
+
+        try {
+            if (follow(value))
+                invalidate();
+        }finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized void set(Value<T> value) {
+    public void set(T value) {
+        lock.lock();
+
+        try {
+            follow(Value.wrap(value));
+
+            // new value is published before notifying, so readers of other threads do not wait for listeners
+            State<T> old = state;
+            version++;
+            state = new State<>(value, true);
+
+            if (old.valid)
+                invalidationListeners.forEach(InvalidationListener::invalidated);
+
+            changeListeners.forEach((l) -> l.changed(value));
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replace followed value
+     * @return true if new value is different
+     */
+    protected boolean follow(Value<T> value) {
         var old = this.value;
         this.value = value;
 
@@ -45,68 +113,85 @@ class PropertyImpl<T> implements Property<T> {
             followRemover = null;
         }
 
-        var changeRemover = value.addChangeListener((n) -> invalidate());
-        var invalidationRemover = value.addInvalidationListener(this::invalidate);
+        // Value is invalidated before its change is visible, so invalidation is enough
+        followRemover = weak ? value.addWeakInvalidationListener(this, PropertyImpl::invalidate) : value.addInvalidationListener(this::invalidate);
 
-        followRemover = () -> {
-            changeRemover.remove();
-            invalidationRemover.remove();
-        };
-
-        if (Objects.equals(old, value))
-            return;
-
-        invalidate();
-    }
-
-    @Override
-    public synchronized void set(T value) {
-        set(Value.wrap(value));
-
-        lastValue = value;
-
-        changeListeners.forEach((l) -> l.changed(value));
-        isValid = true;
+        return !Objects.equals(old, value);
     }
 
     protected void checkChanges() {
+        long epoch = invalidations.get();
         T newValue = value.get();
 
-        if (!Objects.equals(lastValue, newValue)) {
-            lastValue = newValue;
+        if (!Objects.equals(state.value, newValue)) {
+            version++;
+            state = new State<>(newValue, false);
 
-            changeListeners.forEach((l) -> l.changed(newValue));
+            Propagation.changed(this, rank(), changeListeners, newValue);
         }
 
-        // Value like DynamicValue can be invalid even after call get() method, so we should call get() method all time
-        isValid = value.isValid();
+        // Value like DynamicValue can be invalid even after call get() method, so we should call get() method all time.
+        // Invalidation while reading the followed value keeps the property invalid, see DynamicValue#publish
+        if (!value.isValid() || invalidations.get() != epoch)
+            return;
+
+        State<T> checked = new State<>(state.value, true);
+        state = checked;
+
+        if (invalidations.get() != epoch) { // invalidate() saw the old invalid state and skipped
+            state = new State<>(checked.value, false);
+            invalidationListeners.forEach(InvalidationListener::invalidated);
+        }
     }
 
     @Override
     public <X> Property<X> map(Function<T, X> fromSource, Function<X, T> toSource) {
+        return bind(this, new PropertyImpl<>(), fromSource, toSource, false);
+    }
+
+    @Override
+    public <X> Property<X> weakMap(Function<T, X> fromSource, Function<X, T> toSource) {
+        return bind(this, new PropertyImpl<>(), fromSource, toSource, true);
+    }
+
+    /**
+     * Two-sided mapping of any property to the passed child, see {@link Property#map(Function, Function)}
+     * @return Child property
+     */
+    static <T, X, P extends PropertyImpl<X>> P bind(Property<T> source, P child, Function<T, X> fromSource, Function<X, T> toSource) {
+        return bind(source, child, fromSource, toSource, false);
+    }
+
+    /**
+     * @param weak Source references the child weakly, see {@link Property#weakMap(Function, Function)}
+     */
+    static <T, X, P extends PropertyImpl<X>> P bind(Property<T> source, P child, Function<T, X> fromSource, Function<X, T> toSource, boolean weak) {
         DoubleChangeObserver observer = new DoubleChangeObserver();
 
-        Property<X> child = Property.of(fromSource.apply(get()));
+        child.set(fromSource.apply(source.get()));
+        child.mappedRank = source.rank();
 
-        addChangeListener(
-                (n) -> {
-                    if (!observer.tryUpdate()) return;
+        BiConsumer<P, T> sourceListener = (c, n) -> {
+            if (!observer.tryUpdate()) return;
 
-                    try {
-                        child.set(fromSource.apply(n));
-                    }finally {
-                        observer.unlock();
-                    }
+            try {
+                c.set(fromSource.apply(n));
+            }finally {
+                observer.unlock();
+            }
+        };
 
-                }
-        );
+        if (weak)
+            source.addWeakChangeListener(child, sourceListener); // child keeps source property, but not vice versa
+        else
+            source.addChangeListener((n) -> sourceListener.accept(child, n));
 
         child.addChangeListener(
                 (n) -> {
                     if (!observer.tryUpdate()) return;
 
                     try {
-                        set(toSource.apply(n));
+                        source.set(toSource.apply(n));
                     }finally {
                         observer.unlock();
                     }
@@ -118,22 +203,34 @@ class PropertyImpl<T> implements Property<T> {
 
     @Override
     public <X> Property<X> mapWithListener(Function<T, X> fromSource, ChangeListener<X> listener) {
+        return mapWithListener(fromSource, listener, false);
+    }
+
+    @Override
+    public <X> Property<X> weakMapWithListener(Function<T, X> fromSource, ChangeListener<X> listener) {
+        return mapWithListener(fromSource, listener, true);
+    }
+
+    protected <X> Property<X> mapWithListener(Function<T, X> fromSource, ChangeListener<X> listener, boolean weak) {
         DoubleChangeObserver observer = new DoubleChangeObserver();
 
         Property<X> child = Property.of(fromSource.apply(get()));
+        ((PropertyImpl<X>) child).mappedRank = rank();
 
-        addChangeListener(
-                (n) -> {
-                    if (!observer.tryUpdate()) return;
+        BiConsumer<Property<X>, T> sourceListener = (c, n) -> {
+            if (!observer.tryUpdate()) return;
 
-                    try {
-                        child.set(fromSource.apply(n));
-                    }finally {
-                        observer.unlock();
-                    }
+            try {
+                c.set(fromSource.apply(n));
+            }finally {
+                observer.unlock();
+            }
+        };
 
-                }
-        );
+        if (weak)
+            addWeakChangeListener(child, sourceListener); // child keeps this property, but not vice versa
+        else
+            addChangeListener((n) -> sourceListener.accept(child, n));
 
         child.addChangeListener(
                 (n) -> {
@@ -151,41 +248,96 @@ class PropertyImpl<T> implements Property<T> {
     }
 
     @Override
-    public synchronized T get() {
-        if (isValid)
-            return lastValue;
+    public T get() {
+        DependencyTracker.read(this);
+
+        State<T> current = state;
+
+        if (current.valid)
+            return current.value;
+
+        DependencyTracker paused = DependencyTracker.pause(); // followed value is our dependency, not of outer supplier
+
+        try {
+            Propagation propagation = Propagation.enter();
 
-        checkChanges();
+            try {
+                lock.lock();
 
-        return lastValue;
+                try {
+                    if (!state.valid)
+                        checkChanges();
+
+                    return state.value;
+                }finally {
+                    lock.unlock();
+                }
+            }finally {
+                propagation.exit(); // listeners are called after the whole recompute, outside the lock
+            }
+        }finally {
+            DependencyTracker.resume(paused);
+        }
     }
 
     @Override
-    public synchronized void invalidate() {
-        if (!isValid)
+    public int rank() {
+        Value<T> followed = value;
+
+        return Math.max(followed == null ? 0 : followed.rank(), mappedRank) + 1;
+    }
+
+    @Override
+    public long version() {
+        Value<T> followed = value;
+
+        return followed != null && followed.version() == UNKNOWN_VERSION ? UNKNOWN_VERSION : version;
+    }
+
+    @Override
+    public void invalidate() {
+        invalidations.incrementAndGet(); // before reading the state, see checkChanges()
+
+        if (!state.valid)
             return;
 
-        isValid = false;
-        invalidationListeners.forEach(InvalidationListener::invalidated);
+        lock.lock();
+
+        try {
+            State<T> current = state;
+
+            if (!current.valid)
+                return;
+
+            state = new State<>(current.value, false);
+            invalidationListeners.forEach(InvalidationListener::invalidated);
+        }finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean isValid() {
-        return isValid;
+        return state.valid;
     }
 
     @Override
-    public synchronized ListenerRemover addChangeListener(ChangeListener<T> listener) {
-        changeListeners.add(listener);
+    public ListenerRemover addChangeListener(ChangeListener<T> listener) {
+        return changeListeners.add(listener);
+    }
 
-        return () -> changeListeners.remove(listener);
+    @Override
+    public ListenerRemover addInvalidationListener(InvalidationListener listener) {
+        return invalidationListeners.add(listener);
     }
 
     @Override
-    public synchronized ListenerRemover addInvalidationListener(InvalidationListener listener) {
-        invalidationListeners.add(listener);
+    public ListenerRemover addObserversListener(IntConsumer listener) {
+        return observersListeners.add(listener);
+    }
 
-        return () -> invalidationListeners.remove(listener);
+    protected void observersChanged(int delta) {
+        observersListeners.forEach((l) -> l.accept(delta));
     }
 
     @Override
@@ -196,7 +348,7 @@ class PropertyImpl<T> implements Property<T> {
     @Override
     public String toString() {
         return "PropertyImpl{" +
-                "lastValue=" + lastValue +
+                "lastValue=" + state.value +
                 '}';
     }
 }
@@ -212,3 +364,23 @@ class DoubleChangeObserver {
         otherUpdate = false;
     }
 }
+
+/**
+ * Immutable pair of value and its validity
+ */
+class State<T> {
+    protected static final State<?> EMPTY = new State<>(null, false);
+
+    public final T value;
+    public final boolean valid;
+
+    public State(T value, boolean valid) {
+        this.value = value;
+        this.valid = valid;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> State<T> empty() {
+        return (State<T>) EMPTY;
+    }
+}
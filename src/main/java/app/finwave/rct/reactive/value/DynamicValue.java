@@ -1,57 +1,271 @@
 package app.finwave.rct.reactive.value;
 
+import app.finwave.rct.reactive.DependencyTracker;
 import app.finwave.rct.reactive.ListenerRemover;
 import app.finwave.rct.reactive.ChangeListener;
 import app.finwave.rct.reactive.InvalidationListener;
+import app.finwave.rct.reactive.ListenerList;
+import app.finwave.rct.reactive.Propagation;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 
 /**
  * {@link Value} implementation for lambda functions
  * <p>
  * Change listeners will be called when result of lambda is different then stored.
+ * <p>
+ * Valid value is read without locking: value and its validity are published together as one immutable {@link State}.
+ * Recomputing and invalidation use {@link ReentrantLock}, so virtual threads are not pinned by suppliers or listeners.
+ * <p>
+ * Value depends only on invalidation of its dependencies and recomputes lazily, so one change of a shared source
+ * recomputes it once, however many paths lead to it. Change listeners are delivered by {@link Propagation}
+ * <p>
+ * Value is connected to its dependencies only while it has listeners ("hot"). Without listeners ("cold") it does not receive invalidations:
+ * each read checks {@link Value#version()} of dependencies against versions of the last computation and recomputes only if they differ.
+ * So unobserved values cost nothing when their sources change
  */
 class DynamicValue<T> implements Value<T> {
     protected Supplier<T> supplier;
-    protected T value;
 
-    protected boolean isValid;
+    protected volatile State<T> state = State.empty();
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected volatile int rank;
+    protected volatile long version;
+    protected final AtomicLong invalidations = new AtomicLong(); // grows on each invalidate(), even if value is already invalid
 
     protected Value<?>[] invalidationDependencies;
 
-    protected ArrayList<ChangeListener<T>> changeListeners = new ArrayList<>();
-    protected ArrayList<InvalidationListener> invalidationListeners = new ArrayList<>();
+    protected final AtomicInteger observers = new AtomicInteger();
+    protected volatile boolean hot;
+    protected final boolean weak; // dependencies reference this value weakly
+    protected IdentityHashMap<Value<?>, ListenerRemover> subscriptions = new IdentityHashMap<>();
+
+    protected ListenerList<IntConsumer> observersListeners = new ListenerList<>();
+    protected ListenerList<ChangeListener<T>> changeListeners = new ListenerList<>(this::observersChanged);
+    protected ListenerList<InvalidationListener> invalidationListeners = new ListenerList<>(this::observersChanged);
 
-    DynamicValue(Supplier<T> supplier, Value<?>... dependencies) {
+    DynamicValue(Supplier<T> supplier, boolean weak, Value<?>... dependencies) {
         this.supplier = supplier;
+        this.weak = weak;
         this.invalidationDependencies = dependencies;
-
-        Arrays.stream(invalidationDependencies).forEach((d) -> {
-            d.addChangeListener((n) -> invalidate());
-            d.addInvalidationListener(this::invalidate);
-        });
+        this.rank = Arrays.stream(invalidationDependencies).mapToInt(Value::rank).max().orElse(0) + 1;
     }
 
     @Override
-    public synchronized T get() {
-        if (isValid)
+    public T get() {
+        DependencyTracker.read(this);
+
+        State<T> current = state;
+
+        if (current.valid || isCurrent(current))
+            return current.value;
+
+        DependencyTracker paused = DependencyTracker.pause(); // reads of our supplier are not reads of outer one
+
+        try {
+            if (!hot && current instanceof Computed && ((Computed<T>) current).isUpToDate()) // cold value is checked without locking
+                return current.value;
+
+            Propagation propagation = Propagation.enter();
+
+            try {
+                return recompute();
+            }finally {
+                propagation.exit(); // listeners are called after the whole recompute, outside the lock
+            }
+        }finally {
+            DependencyTracker.resume(paused);
+        }
+    }
+
+    /**
+     * Cold value is valid while its dependencies are valid and have versions it was computed from
+     */
+    protected boolean isCurrent(State<T> current) {
+        return !hot && current instanceof Computed && ((Computed<T>) current).isCurrent();
+    }
+
+    protected T recompute() {
+        lock.lock();
+
+        try {
+            State<T> current = state;
+
+            if (current.valid)
+                return current.value;
+
+            long epoch = invalidations.get();
+
+            if (current instanceof Computed && ((Computed<T>) current).isUpToDate()) { // dependencies are back to computed versions
+                publish(new Computed<>(current.value, hot && dependenciesIsValid(), (Computed<T>) current), epoch);
+
+                return current.value;
+            }
+
+            Value<?>[] dependencies = invalidationDependencies;
+            long[] versions = versions(dependencies); // taken before compute, so changes during compute are found by the next check
+
+            T value = current.value;
+            T newValue = compute();
+
+            if (!Objects.equals(value, newValue)) {
+                version++;
+                Propagation.changed(this, rank, changeListeners, newValue);
+
+                value = newValue;
+            }
+
+            publish(new Computed<>(value, hot && haveDependencies() && dependenciesIsValid(), invalidationDependencies, versions(dependencies, versions, invalidationDependencies)), epoch);
+
             return value;
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publish recomputed state. It stays invalid if the value was invalidated while computing (by other thread or by the supplier itself).
+     * State is checked again after publishing: concurrent {@link DynamicValue#invalidate()} may have seen the old invalid state and skipped. Called under the lock
+     * @param epoch Count of invalidations before computing
+     */
+    protected void publish(State<T> computed, long epoch) {
+        if (invalidations.get() != epoch) {
+            state = computed.invalid();
+            return;
+        }
+
+        state = computed;
+
+        if (computed.valid && invalidations.get() != epoch) {
+            state = computed.invalid();
+            invalidationListeners.forEach(InvalidationListener::invalidated);
+        }
+    }
+
+    protected T compute() {
+        return supplier.get();
+    }
+
+    /**
+     * Versions of up to date dependencies. Dependencies of unknown version are not pulled, they can change on each get()
+     */
+    protected static long[] versions(Value<?>[] dependencies) {
+        long[] versions = new long[dependencies.length];
+
+        for (int i = 0; i < dependencies.length; i++) {
+            if (dependencies[i].version() != Value.UNKNOWN_VERSION)
+                dependencies[i].get();
+
+            versions[i] = dependencies[i].version();
+        }
+
+        return versions;
+    }
+
+    /**
+     * Versions of new dependencies: taken before compute for known ones, current for ones found by the compute
+     */
+    protected static long[] versions(Value<?>[] before, long[] versions, Value<?>[] after) {
+        if (before == after)
+            return versions;
+
+        long[] result = new long[after.length];
+
+        for (int i = 0; i < after.length; i++) {
+            result[i] = after[i].version();
+
+            for (int j = 0; j < before.length; j++) {
+                if (before[j] == after[i]) {
+                    result[i] = versions[j];
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    protected void observersChanged(int delta) {
+        observersListeners.forEach((l) -> l.accept(delta));
+
+        int count = observers.addAndGet(delta);
+
+        if (count == 0 || (count == 1 && delta > 0))
+            updateConnection();
+    }
+
+    /**
+     * Connect to dependencies if value has observers, disconnect otherwise
+     */
+    protected void updateConnection() {
+        lock.lock();
+
+        try {
+            boolean observed = observers.get() > 0;
+
+            if (observed == hot)
+                return;
+
+            hot = observed;
+            connect(observed ? invalidationDependencies : new Value<?>[0]);
+
+            State<T> current = state;
+
+            if (current.valid) // nobody will invalidate cold value
+                state = current.invalid();
+        }finally {
+            lock.unlock();
+        }
+    }
 
-        T newValue = supplier.get();
+    /**
+     * Subscribe to invalidation of passed dependencies and unsubscribe from others. Called under the lock
+     */
+    protected void connect(Value<?>[] dependencies) {
+        IdentityHashMap<Value<?>, ListenerRemover> updated = new IdentityHashMap<>();
 
-        if (!Objects.equals(value, newValue)) {
-            changeListeners.forEach((l) -> l.changed(newValue));
+        for (Value<?> dependency : dependencies) {
+            ListenerRemover remover = subscriptions.remove(dependency);
 
-            value = newValue;
+            if (remover == null)
+                remover = weak ? dependency.addWeakInvalidationListener(this, DynamicValue::invalidate) : dependency.addInvalidationListener(this::invalidate);
+
+            updated.put(dependency, remover);
         }
 
-        isValid = haveDependencies() && dependenciesIsValid();
+        subscriptions.values().forEach(ListenerRemover::remove);
+        subscriptions = updated;
+    }
+
+    @Override
+    public int rank() {
+        return rank;
+    }
+
+    /**
+     * Value without dependencies or with dependencies of unknown version can change on each get(), so its version is unknown too
+     */
+    @Override
+    public long version() {
+        Value<?>[] dependencies = invalidationDependencies;
+
+        if (dependencies.length == 0)
+            return UNKNOWN_VERSION;
+
+        for (Value<?> dependency : dependencies) {
+            if (dependency.version() == UNKNOWN_VERSION)
+                return UNKNOWN_VERSION;
+        }
 
-        return value;
+        return version;
     }
 
     protected boolean haveDependencies() {
@@ -68,31 +282,47 @@ class DynamicValue<T> implements Value<T> {
     }
 
     @Override
-    public synchronized void invalidate() {
-        if (!isValid)
+    public void invalidate() {
+        invalidations.incrementAndGet(); // before reading the state, see publish()
+
+        if (!state.valid)
             return;
 
-        isValid = false;
-        invalidationListeners.forEach(InvalidationListener::invalidated);
+        lock.lock();
+
+        try {
+            State<T> current = state;
+
+            if (!current.valid)
+                return;
+
+            state = current.invalid();
+            invalidationListeners.forEach(InvalidationListener::invalidated);
+        }finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean isValid() {
-        return isValid;
+        State<T> current = state;
+
+        return current.valid || isCurrent(current);
     }
 
     @Override
-    public synchronized ListenerRemover addChangeListener(ChangeListener<T> listener) {
-        changeListeners.add(listener);
-
-        return () -> changeListeners.remove(listener);
+    public ListenerRemover addChangeListener(ChangeListener<T> listener) {
+        return changeListeners.add(listener);
     }
 
     @Override
-    public synchronized ListenerRemover addInvalidationListener(InvalidationListener listener) {
-        invalidationListeners.add(listener);
+    public ListenerRemover addInvalidationListener(InvalidationListener listener) {
+        return invalidationListeners.add(listener);
+    }
 
-        return () -> invalidationListeners.remove(listener);
+    @Override
+    public ListenerRemover addObserversListener(IntConsumer listener) {
+        return observersListeners.add(listener);
     }
 
     @Override
@@ -103,7 +333,90 @@ class DynamicValue<T> implements Value<T> {
     @Override
     public String toString() {
         return "DynamicValue{" +
-                "value=" + value +
+                "value=" + state.value +
                 '}';
     }
 }
+
+/**
+ * Immutable pair of value and its validity
+ */
+class State<T> {
+    protected static final State<?> EMPTY = new State<>(null, false);
+
+    public final T value;
+    public final boolean valid;
+
+    public State(T value, boolean valid) {
+        this.value = value;
+        this.valid = valid;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> State<T> empty() {
+        return (State<T>) EMPTY;
+    }
+
+    public State<T> invalid() {
+        return new State<>(value, false);
+    }
+}
+
+/**
+ * State of computed value with versions of dependencies it was computed from
+ */
+class Computed<T> extends State<T> {
+    public final Value<?>[] dependencies;
+    public final long[] versions;
+
+    public Computed(T value, boolean valid, Value<?>[] dependencies, long[] versions) {
+        super(value, valid);
+
+        this.dependencies = dependencies;
+        this.versions = versions;
+    }
+
+    public Computed(T value, boolean valid, Computed<T> computed) {
+        this(value, valid, computed.dependencies, computed.versions);
+    }
+
+    @Override
+    public State<T> invalid() {
+        return new Computed<>(value, false, this);
+    }
+
+    /**
+     * Compare versions of dependencies without recomputing them. Value without dependencies is never current
+     */
+    public boolean isCurrent() {
+        if (dependencies.length == 0)
+            return false;
+
+        for (int i = 0; i < dependencies.length; i++) {
+            if (versions[i] == Value.UNKNOWN_VERSION || !dependencies[i].isValid() || dependencies[i].version() != versions[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Bring dependencies up to date and compare their versions. Value without dependencies is never up to date
+     */
+    public boolean isUpToDate() {
+        if (dependencies.length == 0)
+            return false;
+
+        for (int i = 0; i < dependencies.length; i++) {
+            if (versions[i] == Value.UNKNOWN_VERSION)
+                return false;
+
+            dependencies[i].get();
+
+            if (dependencies[i].version() != versions[i])
+                return false;
+        }
+
+        return true;
+    }
+}
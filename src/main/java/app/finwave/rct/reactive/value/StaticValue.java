@@ -35,6 +35,11 @@ class StaticValue<T> implements Value<T> {
         return true;
     }
 
+    @Override
+    public long version() {
+        return 0;
+    }
+
     @Override
     public ListenerRemover addChangeListener(ChangeListener<T> listener) {
         return ListenerRemover.VOID;
@@ -0,0 +1,48 @@
+package app.finwave.rct.reactive.value;
+
+import app.finwave.rct.reactive.DependencyTracker;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * {@link DynamicValue} what finds dependencies by {@link DependencyTracker}.
+ * <p>
+ * After each run of the supplier, hot value subscribes to newly read values and unsubscribes from values what were not read
+ */
+class TrackedValue<T> extends DynamicValue<T> {
+    TrackedValue(Supplier<T> supplier) {
+        super(supplier, false);
+    }
+
+    @Override
+    protected T compute() {
+        DependencyTracker tracker = DependencyTracker.start();
+        T value;
+
+        try {
+            value = supplier.get();
+        }finally {
+            tracker.stop();
+        }
+
+        resubscribe(tracker);
+
+        return value;
+    }
+
+    /**
+     * Called under the lock. Dependency invalidated before subscription is found by the validity check after compute
+     */
+    protected void resubscribe(DependencyTracker tracker) {
+        Value<?>[] dependencies = tracker.read().stream()
+                .filter((r) -> r != this && r instanceof Value)
+                .toArray(Value<?>[]::new);
+
+        if (hot)
+            connect(dependencies);
+
+        invalidationDependencies = dependencies;
+        rank = Arrays.stream(dependencies).mapToInt(Value::rank).max().orElse(0) + 1;
+    }
+}
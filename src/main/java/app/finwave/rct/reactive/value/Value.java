@@ -5,7 +5,10 @@ import app.finwave.rct.reactive.InvalidationListener;
 import app.finwave.rct.reactive.ListenerRemover;
 import app.finwave.rct.reactive.property.Property;
 
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 
 /**
@@ -14,6 +17,7 @@ import java.util.function.Supplier;
  */
 public interface Value<T> {
     Value<?> EMPTY = Value.wrap(null);
+    long UNKNOWN_VERSION = -1;
 
     /**
      * @return {@link StaticValue} implementation
@@ -28,11 +32,37 @@ public interface Value<T> {
      * <p>
      * If dependencies is empty or contains {@link DynamicValue} without dependencies (in other words, dependencies that can never be valid.)
      * then dependency tracking doesn't make sense: value will get new values from supplier each time when get() called and will never be valid
+     * <p>
+     * Value subscribes to dependencies only while it has listeners, otherwise it compares their {@link Value#version()} on read.
+     * While subscribed, dependencies keep the value, see {@link Value#weakDynamic(Supplier, Value[])} otherwise
      * @param supplier Supplier function
      * @param dependencies Invalidation dependencies
      */
     static <T> Value<T> dynamic(Supplier<T> supplier, Value<?>... dependencies) {
-        return new DynamicValue<>(supplier, dependencies);
+        return new DynamicValue<>(supplier, false, dependencies);
+    }
+
+    /**
+     * Like {@link Value#dynamic(Supplier, Value[])}, but dependencies reference the value weakly, so it is collected with its listeners
+     * when it is not used anymore. Keep a reference to the value while you need its listeners
+     * @param supplier Supplier function
+     * @param dependencies Invalidation dependencies
+     */
+    static <T> Value<T> weakDynamic(Supplier<T> supplier, Value<?>... dependencies) {
+        return new DynamicValue<>(supplier, true, dependencies);
+    }
+
+    /**
+     * Like {@link Value#dynamic(Supplier, Value[])}, but dependencies are found automatically:
+     * value depends on values what were read by the supplier during its last run.
+     * Dependencies are updated on each run, so values of not taken branches are not tracked.
+     * <p>
+     * Only direct reads of {@link Property} and dynamic values on the supplier thread are tracked.
+     * Supplier without dependencies is called on each get(), like dynamic value without dependencies
+     * @param supplier Supplier function
+     */
+    static <T> Value<T> tracked(Supplier<T> supplier) {
+        return new TrackedValue<>(supplier);
     }
 
     /**
@@ -65,6 +95,67 @@ public interface Value<T> {
      */
     ListenerRemover addInvalidationListener(InvalidationListener listener);
 
+    /**
+     * Listen to count of observers: listener is called with +1 after each addition of change or invalidation listener and with -1 after each removal.
+     * Lets owner of the value keep it while somebody listens to it. Default implementation does not report observers
+     * @return {@link ListenerRemover}, which removes the passed listener
+     */
+    default ListenerRemover addObserversListener(IntConsumer listener) {
+        return ListenerRemover.VOID;
+    }
+
+    /**
+     * Add change listener what does not prevent its owner from being collected. Listener is removed after the owner is collected
+     * @param owner Object what the listener works with. Usually it is value what depends on this one
+     * @param listener Listener what receives the owner and new value. It should not reference the owner itself
+     * @return {@link ListenerRemover}, which removes the passed listener
+     */
+    default <O> ListenerRemover addWeakChangeListener(O owner, BiConsumer<O, T> listener) {
+        WeakRegistration<O> registration = new WeakRegistration<>(owner);
+
+        registration.registered(owner, addChangeListener((n) -> {
+            O o = registration.owner();
+
+            if (o != null)
+                listener.accept(o, n);
+        }));
+
+        return registration;
+    }
+
+    /**
+     * Add invalidation listener what does not prevent its owner from being collected. See {@link Value#addWeakChangeListener(Object, BiConsumer)}
+     * @return {@link ListenerRemover}, which removes the passed listener
+     */
+    default <O> ListenerRemover addWeakInvalidationListener(O owner, Consumer<O> listener) {
+        WeakRegistration<O> registration = new WeakRegistration<>(owner);
+
+        registration.registered(owner, addInvalidationListener(() -> {
+            O o = registration.owner();
+
+            if (o != null)
+                listener.accept(o);
+        }));
+
+        return registration;
+    }
+
+    /**
+     * Rank is used to deliver changes in topological order, see {@link app.finwave.rct.reactive.Propagation}
+     * @return Depth of this value in the dependency graph: value is ranked higher than all its dependencies
+     */
+    default int rank() {
+        return 0;
+    }
+
+    /**
+     * Version lets unobserved values check whether their dependencies changed without subscribing to them
+     * @return Number what changes each time when value changes, or {@link Value#UNKNOWN_VERSION} if value does not count versions
+     */
+    default long version() {
+        return UNKNOWN_VERSION;
+    }
+
     /**
      * @param mapper Mapper function
      * @param <X> New type
@@ -0,0 +1,76 @@
+package app.finwave.rct.reactive.value;
+
+import app.finwave.rct.reactive.ListenerRemover;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+
+/**
+ * Listener registration what references its owner weakly.
+ * <p>
+ * When the owner is collected, the listener is removed by the shared {@link Cleaner},
+ * or lazily on the next notification if the cleaner has not run yet
+ */
+class WeakRegistration<O> implements ListenerRemover {
+    static final Cleaner cleaner = Cleaner.create((r) -> {
+        Thread thread = new Thread(r, "rct-cleaner");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    protected final WeakReference<O> owner;
+
+    protected volatile ListenerRemover remover = ListenerRemover.VOID;
+    protected Cleaner.Cleanable cleanable;
+
+    WeakRegistration(O owner) {
+        this.owner = new WeakReference<>(owner);
+    }
+
+    /**
+     * @param owner Same owner as in constructor
+     * @param remover Remover of the registered listener
+     */
+    void registered(O owner, ListenerRemover remover) {
+        this.remover = remover;
+
+        if (remover != ListenerRemover.VOID) // values like StaticValue do not keep listeners
+            this.cleanable = cleaner.register(owner, new Removal(remover)); // action should not reference the owner
+    }
+
+    /**
+     * @return Owner or null if it is collected. In this case listener is removed
+     */
+    O owner() {
+        O o = owner.get();
+
+        if (o == null)
+            remover.remove();
+
+        return o;
+    }
+
+    @Override
+    public void remove() {
+        Cleaner.Cleanable c = cleanable;
+
+        if (c != null)
+            c.clean();
+        else
+            remover.remove();
+    }
+
+    static class Removal implements Runnable {
+        protected final ListenerRemover remover;
+
+        Removal(ListenerRemover remover) {
+            this.remover = remover;
+        }
+
+        @Override
+        public void run() {
+            remover.remove();
+        }
+    }
+}
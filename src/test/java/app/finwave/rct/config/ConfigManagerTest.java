@@ -1,14 +1,20 @@
 package app.finwave.rct.config;
 
+import app.finwave.rct.config.json.JsonTransformer;
+import com.google.gson.Gson;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,4 +114,256 @@ class ConfigManagerTest {
 
         assertEquals(2, ref.exCalls);
     }
-}
\ No newline at end of file
+
+    @Test
+    void eventDriven() throws IOException, ExecutionException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+        ConfigManager configManager = new ConfigManager();
+        ConfigNode node = configManager.load(tmp, ConfigTypeTransformer.gson);
+
+        var test = node.getAsString("test");
+        CompletableFuture<String> updated = new CompletableFuture<>();
+        test.addChangeListener(updated::complete);
+
+        Files.writeString(tmp.toPath(), "{\"test\":\"Hello from fs!\"}");
+
+        try {
+            assertEquals("Hello from fs!", updated.get(5, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            fail("Timeout while waiting for event");
+        }
+    }
+
+    @Test
+    void ownWriteNotReloaded() throws IOException, ExecutionException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        AtomicInteger reads = new AtomicInteger();
+        ConfigManager configManager = new ConfigManager() {
+            @Override
+            protected String read(Path path) throws IOException {
+                reads.incrementAndGet();
+
+                return super.read(path);
+            }
+        };
+        configManager.debounce(50, 500, TimeUnit.MILLISECONDS);
+
+        ConfigNode node = configManager.load(tmp, ConfigTypeTransformer.gson);
+        var test = node.getAsString("test");
+
+        var ref = new Object() {
+            int changes = 0;
+        };
+
+        test.set("Hello, world!");
+        test.addChangeListener((n) -> ref.changes++);
+        Thread.sleep(300);
+
+        assertEquals(1, reads.get()); // echo is recognized by the stamp, without reading
+        assertEquals(0, ref.changes);
+
+        CompletableFuture<String> updated = new CompletableFuture<>();
+        test.addChangeListener(updated::complete);
+
+        Files.writeString(tmp.toPath(), "{\"test\":\"Hello from fs!\"}");
+
+        try {
+            assertEquals("Hello from fs!", updated.get(5, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            fail("Timeout while waiting for event");
+        }
+
+        assertEquals(2, reads.get());
+        configManager.close();
+    }
+
+    @Test
+    void sameStampExternalWrite() throws IOException, ExecutionException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        ConfigManager configManager = new ConfigManager().debounce(100, 500, TimeUnit.MILLISECONDS);
+        ConfigNode node = configManager.load(tmp, ConfigTypeTransformer.gson);
+        var test = node.getAsString("test");
+
+        CompletableFuture<String> updated = new CompletableFuture<>();
+
+        test.set("ours");
+        test.addChangeListener(updated::complete);
+
+        FileTime written = Files.getLastModifiedTime(tmp.toPath());
+        Files.writeString(tmp.toPath(), Files.readString(tmp.toPath()).replace("ours", "ext!")); // same size
+        Files.setLastModifiedTime(tmp.toPath(), written); // within timestamp granularity
+
+        try {
+            assertEquals("ext!", updated.get(5, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            fail("External write was taken for our echo");
+        }
+
+        configManager.close();
+    }
+
+    @Test
+    void writeBehind() throws IOException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        AtomicInteger writes = new AtomicInteger();
+        ConfigManager configManager = new ConfigManager() {
+            @Override
+            protected void write(ConfigFile file, String content) throws IOException {
+                writes.incrementAndGet();
+                super.write(file, content);
+            }
+        };
+        configManager.writeBehind(200, TimeUnit.MILLISECONDS);
+
+        ConfigNode node = configManager.load(tmp, new JsonTransformer(new Gson()));
+
+        for (int i = 0; i < 50; i++) {
+            node.getAsInteger("value" + i).getOr(i);
+        }
+
+        assertEquals(49, node.getAsInteger("value49").get());
+        assertEquals(0, writes.get());
+
+        for (int i = 0; i < 100 && writes.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+
+        Thread.sleep(300);
+        assertEquals(1, writes.get());
+        assertTrue(Files.readString(tmp.toPath()).contains("\"value49\":49"));
+
+        node.getAsString("test").set("Hello, world!");
+        configManager.flush();
+
+        assertEquals(2, writes.get());
+        assertTrue(Files.readString(tmp.toPath()).endsWith("\"test\":\"Hello, world!\"}"));
+
+        node.getAsString("test").set("Goodbye, world!");
+        configManager.close();
+
+        assertEquals(3, writes.get());
+        assertTrue(Files.readString(tmp.toPath()).endsWith("\"test\":\"Goodbye, world!\"}"));
+    }
+
+    @Test
+    void eventWithoutChangesKeepsPending() throws IOException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        ConfigManager configManager = new ConfigManager().debounce(20, 100, TimeUnit.MILLISECONDS).writeBehind(10, TimeUnit.SECONDS);
+        ConfigNode node = configManager.load(tmp, new JsonTransformer(new Gson()));
+        var test = node.getAsString("test");
+
+        test.set("Hello, world!");
+        Files.setLastModifiedTime(tmp.toPath(), FileTime.fromMillis(System.currentTimeMillis() + 1000)); // event, but content is the same
+        Thread.sleep(300);
+
+        assertEquals("Hello, world!", test.get());
+
+        configManager.close();
+
+        assertEquals("{\"test\":\"Hello, world!\"}", Files.readString(tmp.toPath()));
+    }
+
+    @Test
+    void writeBehindFailure() throws IOException, InterruptedException {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        AtomicInteger failures = new AtomicInteger(2);
+        ConfigManager configManager = new ConfigManager() {
+            @Override
+            protected void write(ConfigFile file, String content) throws IOException {
+                if (failures.getAndDecrement() > 0)
+                    throw new IOException("Disk is full");
+
+                super.write(file, content);
+            }
+        };
+        configManager.writeBehind(500, TimeUnit.MILLISECONDS);
+
+        ConfigNode node = configManager.load(tmp, new JsonTransformer(new Gson()));
+        node.getAsString("test").set("Hello, world!");
+
+        assertThrows(IOException.class, configManager::flush); // first failure, reported to the caller
+        assertNotNull(configManager.writeError().get());
+
+        for (int i = 0; i < 200 && (failures.get() >= 0 || configManager.writeError().get() != null); i++) { // second failure, then retried
+            Thread.sleep(20);
+        }
+
+        assertEquals("{\"test\":\"Hello, world!\"}", Files.readString(tmp.toPath()));
+        assertNull(configManager.writeError().get());
+
+        configManager.close();
+    }
+
+    @Test
+    void atomicWrites() throws IOException, ExecutionException, InterruptedException {
+        Path dir = Files.createTempDirectory("rct");
+        Path file = dir.resolve("config.json");
+        dir.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+
+        ConfigManager configManager = new ConfigManager().atomicWrites(true);
+        ConfigNode node = configManager.load(file.toFile(), new JsonTransformer(new Gson()));
+
+        var test = node.getAsString("test");
+        test.set("Hello, world!");
+
+        assertEquals("{\"test\":\"Hello, world!\"}", Files.readString(file));
+
+        try (var list = Files.list(dir)) {
+            assertEquals(1, list.count()); // temporary file is moved
+        }
+
+        CompletableFuture<String> updated = new CompletableFuture<>();
+        test.addChangeListener(updated::complete);
+
+        Path replacement = dir.resolve("replacement.json");
+        Files.writeString(replacement, "{\"test\":\"Replaced\"}");
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+
+        try {
+            assertEquals("Replaced", updated.get(5, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            fail("Timeout while waiting for event");
+        }
+
+        configManager.close();
+    }
+
+    @Test
+    void atomicWriteThroughSymlink() throws IOException {
+        Path dir = Files.createTempDirectory("rct");
+        Path target = dir.resolve("target.json");
+        Path link = dir.resolve("config.json");
+        dir.toFile().deleteOnExit();
+        target.toFile().deleteOnExit();
+        link.toFile().deleteOnExit();
+
+        Files.writeString(target, "{}");
+        Files.createSymbolicLink(link, target);
+
+        ConfigManager configManager = new ConfigManager().atomicWrites(false);
+        ConfigNode node = configManager.load(link.toFile(), new JsonTransformer(new Gson()));
+
+        node.getAsString("test").set("Hello, world!");
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals("{\"test\":\"Hello, world!\"}", Files.readString(target));
+
+        try (var list = Files.list(dir)) {
+            assertEquals(2, list.count());
+        }
+
+        configManager.close();
+    }
+}
@@ -0,0 +1,121 @@
+package app.finwave.rct.config;
+
+import app.finwave.rct.config.json.JsonNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Default methods of {@link ConfigNode}, tested on a node what only provides properties
+ */
+class DefaultConfigNodeTest {
+    Gson gson = new Gson();
+    Property<JsonObject> source;
+    ConfigNode node;
+
+    @BeforeEach
+    void setUp() {
+        source = Property.of(gson.fromJson("{\"a\":1,\"b\":\"text\",\"sub\":{\"c\":true}}", JsonElement.class).getAsJsonObject());
+        node = new PlainNode(new JsonNode(source, gson));
+    }
+
+    @Test
+    void snapshot() {
+        ConfigSnapshot snapshot = node.snapshot();
+
+        assertEquals(0, snapshot.version());
+        assertEquals(1, snapshot.getAsInteger("a"));
+        assertTrue(snapshot.exists("sub"));
+
+        node.getAsInteger("a").set(2);
+        node.node("sub").getAsBoolean("c").set(false);
+
+        assertEquals(1, snapshot.getAsInteger("a")); // values are kept after the first read
+        assertFalse(snapshot.node("sub").getAsBoolean("c")); // but not read values come from the current config
+        assertEquals(2, node.snapshot().getAsInteger("a"));
+    }
+
+    @Test
+    void updateNumbers() {
+        node.update((tx) -> tx
+                .set("big", new BigInteger("9007199254740993")) // above 2^53, would be rounded by double
+                .set("decimal", new BigDecimal("0.1"))
+                .set("short", (short) 7));
+
+        assertEquals(9007199254740993L, node.getAsLong("big").get());
+        assertEquals(0.1, node.getAsDouble("decimal").get());
+        assertEquals(7, node.getAsInteger("short").get());
+
+        assertThrows(ArithmeticException.class, () -> node.update((tx) -> tx.set("a", 5).set("big", new BigInteger("99999999999999999999"))));
+        assertEquals(1, node.getAsInteger("a").get()); // nothing is applied
+    }
+
+    @Test
+    void updateRemove() {
+        node.update((tx) -> tx.remove("b"));
+
+        assertNull(node.getAsString("b").get());
+        assertTrue(node.exists("b")); // properties cannot remove keys
+    }
+
+    static class PlainNode implements ConfigNode {
+        protected ConfigNode node;
+
+        PlainNode(ConfigNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public <T> Property<T> getAs(Class<T> type) {
+            return node.getAs(type);
+        }
+
+        @Override
+        public Property<String> getAsString(String key) {
+            return node.getAsString(key);
+        }
+
+        @Override
+        public Property<Integer> getAsInteger(String key) {
+            return node.getAsInteger(key);
+        }
+
+        @Override
+        public Property<Boolean> getAsBoolean(String key) {
+            return node.getAsBoolean(key);
+        }
+
+        @Override
+        public Property<Float> getAsFloat(String key) {
+            return node.getAsFloat(key);
+        }
+
+        @Override
+        public Property<Double> getAsDouble(String key) {
+            return node.getAsDouble(key);
+        }
+
+        @Override
+        public Property<Long> getAsLong(String key) {
+            return node.getAsLong(key);
+        }
+
+        @Override
+        public ConfigNode node(String key) {
+            return new PlainNode(node.node(key));
+        }
+
+        @Override
+        public boolean exists(String key) {
+            return node.exists(key);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package app.finwave.rct.config;
+
+import app.finwave.rct.config.json.JsonTransformer;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadTest {
+
+    /**
+     * Virtual threads write config and block in listeners. If a virtual thread parks while it holds a monitor,
+     * JVM prints its stack with "&lt;== monitors" marker (see jdk.tracePinnedThreads in build.gradle)
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void noPinning() throws Exception {
+        File tmp = File.createTempFile("test", ".tmp");
+        tmp.deleteOnExit();
+
+        ConfigManager configManager = new ConfigManager();
+        ConfigNode node = configManager.load(tmp, new JsonTransformer(new Gson()));
+
+        Property<Integer> counter = node.getAsInteger("counter");
+        counter.addChangeListener((n) -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Method startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        PrintStream out = System.out;
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(trace, true));
+
+        try {
+            List<Thread> threads = new ArrayList<>();
+
+            for (int i = 0; i < 16; i++) {
+                int thread = i;
+
+                threads.add((Thread) startVirtualThread.invoke(null, (Runnable) () -> {
+                    for (int j = 0; j < 10; j++) {
+                        counter.set(thread * 100 + j);
+                        node.getAsString("thread" + thread).set("value" + j);
+                        counter.get();
+                    }
+                }));
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }finally {
+            System.setOut(out);
+            configManager.close();
+        }
+
+        assertFalse(trace.toString().contains("<== monitors"), trace.toString());
+        assertEquals(17, node.getAs(JsonObject.class).get().size()); // counter and one key per thread
+    }
+}
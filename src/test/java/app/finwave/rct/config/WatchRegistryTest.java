@@ -0,0 +1,184 @@
+package app.finwave.rct.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchRegistryTest {
+
+    @Test
+    void sharedDirectory() throws IOException, ExecutionException, InterruptedException {
+        Path dir = Files.createTempDirectory("rct");
+        File first = dir.resolve("first.json").toFile();
+        File second = dir.resolve("second.json").toFile();
+        first.deleteOnExit();
+        second.deleteOnExit();
+        dir.toFile().deleteOnExit();
+
+        WatchRegistry registry = new WatchRegistry();
+        FileWatcher eventDriven = new FileWatcher(registry, 0);
+        FileWatcher polling = new FileWatcher(registry, TimeUnit.MILLISECONDS.toNanos(100));
+
+        CompletableFuture<Object> firstChanged = new CompletableFuture<>();
+        CompletableFuture<Object> secondChanged = new CompletableFuture<>();
+
+        Files.writeString(first.toPath(), "");
+        Files.writeString(second.toPath(), "");
+
+        eventDriven.watch(first, () -> firstChanged.complete(null));
+        polling.watch(second, () -> secondChanged.complete(null));
+
+        assertEquals(1, registry.directories.size());
+        assertEquals(2, registry.directories.values().iterator().next().files.size());
+
+        Files.writeString(first.toPath(), "{}");
+        Files.writeString(second.toPath(), "{}");
+
+        try {
+            firstChanged.get(5, TimeUnit.SECONDS);
+            secondChanged.get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            fail("Timeout while waiting for events");
+        }
+
+        eventDriven.close();
+        assertEquals(1, registry.directories.size());
+        assertNotNull(registry.watchService);
+
+        polling.close();
+        assertTrue(registry.directories.isEmpty());
+        assertTrue(registry.pollingTasks.isEmpty());
+        assertNull(registry.watchService);
+    }
+
+    @Test
+    void closedWatcher() throws IOException {
+        WatchRegistry registry = new WatchRegistry();
+        FileWatcher watcher = new FileWatcher(registry, 0);
+
+        watcher.close();
+        watcher.close();
+
+        assertEquals(0, registry.users);
+        assertThrows(IllegalStateException.class, () -> watcher.watch(new File("test.json"), () -> {}));
+    }
+
+    @Test
+    void debounce() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("rct", ".json");
+        file.toFile().deleteOnExit();
+
+        WatchRegistry registry = new WatchRegistry();
+        FileWatcher watcher = new FileWatcher(registry, 0);
+        watcher.debounce(200, 1000, TimeUnit.MILLISECONDS);
+
+        AtomicInteger calls = new AtomicInteger();
+        watcher.watch(file.toFile(), calls::incrementAndGet);
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "{\"i\":" + i + "}");
+            Thread.sleep(20);
+        }
+
+        for (int i = 0; i < 100 && calls.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+
+        Thread.sleep(400);
+        assertEquals(1, calls.get());
+
+        watcher.close();
+        assertThrows(IllegalArgumentException.class, () -> watcher.debounce(100, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void debounceMaxDelay() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("rct", ".json");
+        file.toFile().deleteOnExit();
+
+        WatchRegistry registry = new WatchRegistry();
+        FileWatcher watcher = new FileWatcher(registry, 0);
+        watcher.debounce(200, 300, TimeUnit.MILLISECONDS);
+
+        AtomicInteger calls = new AtomicInteger();
+        watcher.watch(file.toFile(), calls::incrementAndGet);
+
+        for (int i = 0; i < 40; i++) { // events keep coming more often than quiet period for 1.2 seconds
+            Files.writeString(file, "{\"i\":" + i + "}");
+            Thread.sleep(30);
+        }
+
+        assertTrue(calls.get() >= 2);
+
+        watcher.close();
+    }
+
+    @Test
+    void slowListener() throws IOException, InterruptedException, ExecutionException {
+        Path dir = Files.createTempDirectory("rct");
+        File slow = dir.resolve("slow.json").toFile();
+        File fast = dir.resolve("fast.json").toFile();
+        slow.deleteOnExit();
+        fast.deleteOnExit();
+        dir.toFile().deleteOnExit();
+
+        Files.writeString(slow.toPath(), "");
+        Files.writeString(fast.toPath(), "");
+
+        WatchRegistry registry = new WatchRegistry();
+        FileWatcher watcher = new FileWatcher(registry, 0);
+        watcher.debounce(20, 100, TimeUnit.MILLISECONDS);
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger slowCalls = new AtomicInteger();
+        CompletableFuture<Object> fastChanged = new CompletableFuture<>();
+
+        watcher.watch(slow, () -> {
+            slowCalls.incrementAndGet();
+
+            try {
+                release.await(); // listener of slow file blocks its dispatcher thread
+            }catch (InterruptedException ignored) {}
+        });
+        watcher.watch(fast, () -> fastChanged.complete(null));
+
+        Files.writeString(slow.toPath(), "{}");
+
+        for (int i = 0; i < 100 && slowCalls.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+
+        Files.writeString(slow.toPath(), "{\"a\":1}"); // delivered after the running call
+        Files.writeString(fast.toPath(), "{}");
+
+        try {
+            fastChanged.get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            fail("Fast file was stalled by slow listener");
+        }
+
+        Thread.sleep(200);
+        assertEquals(1, slowCalls.get()); // calls of one file do not overlap
+
+        release.countDown();
+
+        for (int i = 0; i < 100 && slowCalls.get() < 2; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(2, slowCalls.get());
+
+        watcher.close();
+    }
+}
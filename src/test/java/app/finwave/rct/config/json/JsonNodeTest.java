@@ -0,0 +1,445 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigChange;
+import app.finwave.rct.config.ConfigChangeSet;
+import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonNodeTest {
+    Gson gson = new Gson();
+    Property<JsonObject> source;
+    JsonNode node;
+
+    JsonObject parse(String json) {
+        return gson.fromJson(json, JsonElement.class).getAsJsonObject();
+    }
+
+    @BeforeEach
+    void setUp() {
+        source = Property.of(parse("{\"a\":1,\"b\":\"text\",\"sub\":{\"c\":true}}"));
+        node = new JsonNode(source, gson);
+    }
+
+    @Test
+    void onlyChangedKeyNotified() {
+        var ref = new Object() {
+            int aCalls = 0;
+            int bCalls = 0;
+            int cCalls = 0;
+        };
+
+        var a = node.getAsInteger("a");
+        var b = node.getAsString("b");
+        var c = node.node("sub").getAsBoolean("c");
+
+        a.addChangeListener((n) -> ref.aCalls++);
+        b.addChangeListener((n) -> ref.bCalls++);
+        c.addChangeListener((n) -> ref.cCalls++);
+
+        source.set(parse("{\"a\":2,\"b\":\"text\",\"sub\":{\"c\":true}}"));
+
+        assertEquals(2, a.get());
+        assertEquals(1, ref.aCalls);
+        assertEquals(0, ref.bCalls);
+        assertEquals(0, ref.cCalls);
+
+        source.set(parse("{\"a\":2,\"b\":\"text\",\"sub\":{\"c\":false}}"));
+
+        assertFalse(c.get());
+        assertEquals(1, ref.aCalls);
+        assertEquals(0, ref.bCalls);
+        assertEquals(1, ref.cCalls);
+    }
+
+    @Test
+    void removedKey() {
+        var b = node.getAsString("b");
+
+        source.set(parse("{\"a\":1}"));
+
+        assertNull(b.get());
+        assertFalse(node.exists("b"));
+    }
+
+    @Test
+    void writeNotifiesSameKey() {
+        var a1 = node.getAsInteger("a");
+        var a2 = node.getAsLong("a");
+        var b = node.getAsString("b");
+
+        var ref = new Object() {
+            int bCalls = 0;
+        };
+        b.addChangeListener((n) -> ref.bCalls++);
+
+        a1.set(10);
+
+        assertEquals(10L, a2.get());
+        assertEquals(10, source.get().get("a").getAsInt());
+        assertEquals(0, ref.bCalls);
+    }
+
+    @Test
+    void primitiveProperties() {
+        var a = node.getAsIntProperty("a");
+        var boxed = node.getAsInteger("a");
+        var c = node.node("sub").getAsBooleanProperty("c");
+
+        assertSame(a, node.getAsIntProperty("a"));
+        assertEquals(1, a.getInt());
+        assertTrue(c.getBoolean());
+
+        source.set(parse("{\"a\":2,\"b\":\"text\",\"sub\":{\"c\":false}}"));
+
+        assertEquals(2, a.getInt());
+        assertFalse(c.getBoolean());
+
+        a.setInt(5);
+
+        assertEquals(5, boxed.get());
+        assertEquals(5, source.get().get("a").getAsInt());
+    }
+
+    @Test
+    void writeCopiesPath() {
+        JsonObject before = source.get();
+        JsonObject sub = before.getAsJsonObject("sub");
+
+        node.getAsInteger("a").set(2);
+
+        assertNotSame(before, source.get());
+        assertEquals(1, before.get("a").getAsInt()); // old tree is a snapshot
+        assertSame(sub, source.get().get("sub")); // unchanged subtree is shared
+
+        node.node("sub").getAsBoolean("c").set(false);
+
+        assertTrue(sub.get("c").getAsBoolean());
+        assertFalse(source.get().getAsJsonObject("sub").get("c").getAsBoolean());
+    }
+
+    @Test
+    void snapshot() {
+        var a = node.getAsInteger("a");
+        var snapshot = node.snapshot();
+
+        var ref = new Object() {
+            long seenVersion = -1;
+        };
+        a.addChangeListener((n) -> ref.seenVersion = node.snapshot().version());
+
+        source.set(parse("{\"a\":2,\"b\":\"new\",\"sub\":{\"c\":false}}"));
+
+        assertEquals(1, snapshot.getAsInteger("a"));
+        assertEquals("text", snapshot.getAsString("b"));
+        assertTrue(snapshot.node("sub").getAsBoolean("c"));
+
+        var next = node.snapshot();
+
+        assertTrue(next.version() > snapshot.version());
+        assertEquals(next.version(), ref.seenVersion);
+        assertEquals(next.version(), next.node("sub").version());
+        assertEquals(2, next.getAsInteger("a"));
+        assertFalse(next.node("sub").getAsBoolean("c"));
+
+        a.set(3);
+
+        assertTrue(node.snapshot().version() > next.version());
+        assertEquals(2, next.getAsInteger("a"));
+        assertSame(node.snapshot(), node.snapshot());
+    }
+
+    @Test
+    void subNodeWrite() {
+        ConfigNode sub = node.node("new");
+        var value = sub.getAsString("value");
+
+        assertNull(value.get());
+
+        value.set("hello");
+
+        assertEquals("hello", source.get().getAsJsonObject("new").get("value").getAsString());
+        assertTrue(node.node("new").exists("value"));
+    }
+
+    @Test
+    void sameProperty() {
+        assertSame(node.getAsInteger("a"), node.getAsInteger("a"));
+        assertSame(node.getAs(JsonObject.class), node.getAs(JsonObject.class));
+        assertSame(node.node("sub"), node.node("sub"));
+        assertSame(node.node("sub").getAsBoolean("c"), node.node("sub").getAsBoolean("c"));
+
+        assertNotSame(node.getAsInteger("a"), node.getAsLong("a"));
+    }
+
+    @Test
+    void unusedCollected() throws InterruptedException {
+        WeakReference<?> property = new WeakReference<>(node.getAsInteger("a"));
+        WeakReference<?> subNode = new WeakReference<>(node.node("sub"));
+
+        for (int i = 0; i < 100 && (property.get() != null || subNode.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(property.get());
+        assertNull(subNode.get());
+
+        source.set(parse("{\"a\":3}"));
+        node.expungeCollected();
+
+        assertTrue(node.cache.isEmpty());
+        assertTrue(node.keySubscriptions.get("a").isEmpty());
+        assertEquals(3, node.getAsInteger("a").get());
+    }
+
+    @Test
+    void listenedKept() throws InterruptedException {
+        var ref = new Object() {
+            int calls = 0;
+        };
+
+        var remover = node.getAsString("b").addChangeListener((n) -> ref.calls++); // nobody keeps the properties
+        node.node("sub").getAsBoolean("c").addChangeListener((n) -> ref.calls++);
+
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        source.set(parse("{\"a\":1,\"b\":\"new\",\"sub\":{\"c\":false}}"));
+
+        assertEquals(2, ref.calls);
+
+        remover.remove(); // property without listeners is not kept anymore
+        remover = null; // remover references its listener list and the property
+        WeakReference<?> property = new WeakReference<>(node.getAsString("b"));
+
+        for (int i = 0; i < 100 && property.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(property.get());
+    }
+
+    @Test
+    void update() {
+        var ref = new Object() {
+            int sourceCalls = 0;
+            int bCalls = 0;
+        };
+
+        var a = node.getAsInteger("a");
+        var b = node.getAsString("b");
+        var c = node.node("sub").getAsBoolean("c");
+        var d = node.node("sub").getAsString("d");
+
+        source.addChangeListener((n) -> ref.sourceCalls++);
+        b.addChangeListener((n) -> ref.bCalls++);
+
+        JsonObject old = source.get();
+
+        node.update((tx) -> {
+            tx.set("a", 5);
+            tx.set("b", "text");
+            tx.node("sub").set("c", false);
+            tx.node("sub").set("d", "new");
+            tx.set("e", 1.5);
+        });
+
+        assertEquals(1, ref.sourceCalls);
+        assertEquals(0, ref.bCalls);
+
+        assertEquals(5, a.get());
+        assertFalse(c.get());
+        assertEquals("new", d.get());
+        assertEquals(1.5, node.getAsDouble("e").get());
+
+        assertEquals(1, old.get("a").getAsInt()); // old object is not modified
+        assertTrue(old.getAsJsonObject("sub").get("c").getAsBoolean());
+        assertSame(old.get("b"), source.get().get("b"));
+
+        node.update((tx) -> tx.set("a", 5));
+        assertEquals(1, ref.sourceCalls);
+
+        node.update((tx) -> tx.remove("e"));
+        assertFalse(node.exists("e"));
+        assertNull(node.getAsDouble("e").get());
+    }
+
+    @Test
+    void subNodeUpdate() {
+        var c = node.node("sub").getAsBoolean("c");
+
+        node.node("sub").update((tx) -> tx.set("c", false).node("deeper").set("x", "y"));
+
+        assertFalse(c.get());
+        assertFalse(source.get().getAsJsonObject("sub").get("c").getAsBoolean());
+        assertEquals("y", node.node("sub").node("deeper").getAsString("x").get());
+    }
+
+    @Test
+    void changeSet() {
+        var sub = node.node("sub");
+        var ref = new Object() {
+            ConfigChangeSet last;
+            int calls = 0;
+        };
+
+        node.changes().addChangeListener((c) -> {
+            ref.last = c;
+            ref.calls++;
+        });
+
+        source.set(parse("{\"a\":1,\"sub\":{\"c\":false,\"d\":{\"e\":1}},\"f\":[1]}"));
+
+        assertEquals(1, ref.calls);
+        assertEquals(List.of(
+                new ConfigChange(List.of("b"), ConfigChange.Type.REMOVED),
+                new ConfigChange(List.of("sub", "c"), ConfigChange.Type.MODIFIED),
+                new ConfigChange(List.of("sub", "d"), ConfigChange.Type.ADDED),
+                new ConfigChange(List.of("f"), ConfigChange.Type.ADDED)
+        ), ref.last.changes());
+        assertEquals(node.snapshot().version(), ref.last.version());
+        assertTrue(ref.last.affects("sub", "d", "e"));
+        assertFalse(ref.last.affects("a"));
+
+        assertEquals(List.of(
+                new ConfigChange(List.of("c"), ConfigChange.Type.MODIFIED),
+                new ConfigChange(List.of("d"), ConfigChange.Type.ADDED)
+        ), sub.changes().get().changes());
+
+        source.set(parse("{\"a\":1,\"sub\":{\"c\":false,\"d\":{\"e\":1}},\"f\":[1]}")); // equal content
+
+        assertEquals(1, ref.calls);
+
+        sub.node("d").getAsInteger("e").set(2);
+
+        assertEquals(2, ref.calls);
+        assertEquals(List.of(new ConfigChange(List.of("sub", "d", "e"), ConfigChange.Type.MODIFIED)), ref.last.changes());
+    }
+
+    @Test
+    void snapshotEquality() {
+        var sub = node.node("sub");
+        var snapshot = node.snapshot();
+        var subSnapshot = sub.snapshot();
+
+        source.set(parse("{\"a\":1,\"b\":\"text\",\"sub\":{\"c\":true}}")); // new objects, equal content
+
+        assertEquals(snapshot, node.snapshot());
+        assertEquals(snapshot.hashCode(), node.snapshot().hashCode());
+
+        JsonObject reloaded = source.get();
+        node.getAsInteger("a").set(2);
+
+        assertNotEquals(snapshot, node.snapshot());
+        assertNotEquals(subSnapshot, sub.snapshot()); // same content, but newer version of the tree
+        assertEquals(new JsonSnapshot(source.get(), 1, gson), new JsonSnapshot(parse(source.get().toString()), 1, gson));
+        assertSame(reloaded.get("sub"), source.get().get("sub")); // unchanged subtree is shared
+    }
+
+    @Test
+    void equalNumbersNotChanged() {
+        source.set(parse("{\"a\":1,\"list\":[1,2.5,0.0]}"));
+
+        var ref = new Object() {
+            int calls = 0;
+        };
+
+        node.changes().addChangeListener((c) -> ref.calls++);
+
+        JsonArray list = new JsonArray(); // numbers built by code, not parsed
+        list.add(1);
+        list.add(2.5);
+        list.add(-0.0);
+
+        JsonObject built = new JsonObject();
+        built.addProperty("a", 1L);
+        built.add("list", list);
+
+        assertEquals(new JsonSnapshot(source.get(), 1, gson), new JsonSnapshot(built, 1, gson));
+        assertEquals(new JsonSnapshot(source.get(), 1, gson).hashCode(), new JsonSnapshot(built, 1, gson).hashCode());
+
+        source.set(built);
+
+        assertEquals(0, ref.calls);
+    }
+
+    @Test
+    void concurrentWrites() throws InterruptedException {
+        var sub = node.node("sub");
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            int thread = i;
+
+            threads[i] = new Thread(() -> {
+                var root = node.getAsInteger("root" + thread);
+                var nested = sub.getAsInteger("nested" + thread);
+
+                for (int j = 1; j <= 200; j++) {
+                    root.set(j);
+                    nested.set(j);
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            assertEquals(200, source.get().get("root" + i).getAsInt());
+            assertEquals(200, source.get().getAsJsonObject("sub").get("nested" + i).getAsInt());
+        }
+
+        assertEquals(3 + threads.length, source.get().size());
+        assertEquals(1 + threads.length, source.get().getAsJsonObject("sub").size());
+        assertEquals(source.get(), node.snapshot().getAs(JsonObject.class));
+    }
+
+    @Test
+    void subNodeVersion() {
+        var sub = node.node("sub");
+        var subChanges = new Object() {
+            long version = -1;
+        };
+
+        sub.changes().addChangeListener((c) -> subChanges.version = c.version());
+
+        node.getAsInteger("a").set(2); // sub is not changed, but its snapshot has version of the tree
+
+        assertEquals(node.snapshot().version(), sub.snapshot().version());
+        assertEquals(node.snapshot().node("sub"), sub.snapshot());
+
+        sub.getAsBoolean("c").set(false);
+
+        assertEquals(node.snapshot().version(), sub.snapshot().version());
+        assertEquals(node.snapshot().version(), subChanges.version);
+        assertEquals(node.snapshot().version(), node.changes().get().version());
+        assertFalse(sub.snapshot().getAsBoolean("c"));
+
+        source.set(parse("{\"a\":2,\"b\":\"text\",\"sub\":{\"c\":true}}"));
+
+        assertEquals(node.snapshot().version(), sub.snapshot().version());
+        assertEquals(node.snapshot().version(), subChanges.version);
+
+        sub.update((tx) -> tx.set("d", 1));
+
+        assertEquals(node.snapshot().version(), subChanges.version);
+        assertEquals(1, sub.snapshot().getAsInteger("d"));
+    }
+}
@@ -0,0 +1,141 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTransformerTest {
+
+    @Test
+    void keepLastGood() {
+        Property<String> content = Property.of("{\"a\":1,\"sub\":{\"b\":\"text\"}}");
+        ConfigNode node = new JsonTransformer(new Gson(), true).transform(content);
+
+        var ref = new Object() {
+            int aCalls = 0;
+            int errorCalls = 0;
+        };
+
+        var a = node.getAsInteger("a");
+        var b = node.node("sub").getAsString("b");
+        var error = node.parseError();
+
+        a.addChangeListener((n) -> ref.aCalls++);
+        error.addChangeListener((n) -> ref.errorCalls++);
+
+        assertNull(error.get());
+
+        content.set("{\"a\":2,\"sub\":{\"b\""); // half-written file
+
+        assertEquals(1, a.get());
+        assertEquals("text", b.get());
+        assertEquals(0, ref.aCalls);
+        assertNotNull(error.get());
+        assertNotNull(node.node("sub").parseError().get());
+        assertEquals("{\"a\":2,\"sub\":{\"b\"", content.get()); // broken content is not overwritten
+
+        content.set("");
+
+        assertEquals(1, a.get());
+        assertEquals(0, ref.aCalls);
+        assertInstanceOf(JsonParseException.class, error.get()); // skip is reported
+
+        content.set("{\"a\":3,\"sub\":{\"b\":\"text\"}}");
+
+        assertEquals(3, a.get());
+        assertEquals(1, ref.aCalls);
+        assertNull(error.get());
+        assertEquals(3, ref.errorCalls);
+    }
+
+    @Test
+    void emptyOnError() {
+        Property<String> content = Property.of("{\"a\":1}");
+        ConfigNode node = new JsonTransformer(new Gson()).transform(content);
+
+        var a = node.getAsInteger("a");
+
+        content.set("[1, 2]");
+
+        assertNull(a.get());
+        assertNotNull(node.parseError().get());
+
+        content.set("");
+
+        assertNull(a.get());
+        assertNull(node.parseError().get()); // blank content is empty object
+    }
+
+    @Test
+    void writeAfterError() {
+        Property<String> content = Property.of("{\"a\":1}");
+        ConfigNode node = new JsonTransformer(new Gson(), true).transform(content);
+
+        content.set("{\"a\":");
+        node.getAsString("b").set("value");
+
+        assertEquals("{\"a\":1,\"b\":\"value\"}", content.get());
+    }
+
+    @Test
+    void reloadWhileWriting() throws Exception {
+        Property<String> content = Property.of("{\"p\":0,\"q\":0}");
+        ConfigNode node = new JsonTransformer(new Gson()).transform(content);
+
+        var p = node.getAsInteger("p");
+        var whole = node.getAs(JsonObject.class);
+
+        for (int i = 1; i <= 1000; i++) {
+            int round = i;
+            CyclicBarrier start = new CyclicBarrier(3);
+
+            Thread[] threads = new Thread[] {
+                    new Thread(() -> {
+                        await(start);
+                        content.set("{\"p\":-1,\"q\":" + round + "}");
+                    }),
+                    new Thread(() -> {
+                        await(start);
+                        p.set(round);
+                    }),
+                    new Thread(() -> {
+                        JsonObject obj = new JsonObject();
+                        obj.addProperty("p", round);
+                        obj.addProperty("q", -round);
+
+                        await(start);
+                        whole.set(obj);
+                    })
+            };
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            JsonObject inContent = JsonParser.parseString(content.get()).getAsJsonObject();
+
+            assertEquals(inContent, node.snapshot().getAs(JsonObject.class), "round " + round);
+            assertEquals(inContent.get("p").getAsInt(), p.get(), "round " + round);
+        }
+    }
+
+    static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
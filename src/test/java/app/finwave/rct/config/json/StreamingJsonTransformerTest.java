@@ -0,0 +1,169 @@
+package app.finwave.rct.config.json;
+
+import app.finwave.rct.config.ConfigChange;
+import app.finwave.rct.config.ConfigChangeSet;
+import app.finwave.rct.config.ConfigNode;
+import app.finwave.rct.reactive.property.Property;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingJsonTransformerTest {
+    Gson gson = new Gson();
+    Property<String> content;
+    ConfigNode node;
+
+    JsonObject source() {
+        return ((JsonNode) node).object.get();
+    }
+
+    JsonObject parse(String json) {
+        return gson.fromJson(json, JsonElement.class).getAsJsonObject();
+    }
+
+    @BeforeEach
+    void setUp() {
+        content = Property.of("{\"a\":1,\"routes\":{\"r1\":\"x\",\"r2\":[1,2,3]},\"sub\":{\"b\":\"text\",\"c\":true}}");
+        node = new StreamingJsonTransformer(gson, true).transform(content);
+    }
+
+    @Test
+    void onlySubscribedParsed() {
+        var a = node.getAsInteger("a");
+        var b = node.node("sub").getAsString("b");
+
+        assertEquals(1, a.get());
+        assertEquals("text", b.get());
+        assertEquals(parse("{\"a\":1,\"sub\":{\"b\":\"text\"}}"), source());
+
+        assertEquals("x", node.node("routes").getAsString("r1").get()); // parsed on demand
+        assertTrue(node.exists("routes"));
+        assertFalse(node.exists("missing"));
+    }
+
+    @Test
+    void changes() {
+        var a = node.getAsInteger("a");
+        var b = node.node("sub").getAsString("b");
+
+        var ref = new Object() {
+            int aCalls = 0;
+            int bCalls = 0;
+        };
+
+        a.addChangeListener((n) -> ref.aCalls++);
+        b.addChangeListener((n) -> ref.bCalls++);
+
+        content.set("{\"a\":1,\"routes\":{\"r1\":\"y\"},\"sub\":{\"b\":\"text\",\"c\":false}}"); // only skipped values changed
+
+        assertEquals(0, ref.aCalls);
+        assertEquals(0, ref.bCalls);
+
+        content.set("{\"a\":2,\"sub\":{\"b\":\"new\"}}");
+
+        assertEquals(2, a.get());
+        assertEquals("new", b.get());
+        assertEquals(1, ref.aCalls);
+        assertEquals(1, ref.bCalls);
+    }
+
+    @Test
+    void materializedKeptOnReload() {
+        node.getAsInteger("a");
+        node.snapshot(); // whole object is parsed, but only "a" is subscribed
+        assertTrue(node.exists("routes"));
+
+        long version = node.snapshot().version();
+
+        content.set("{\"a\":1,\"routes\":{\"r1\":\"x\",\"r2\":[1,2,3]},\"sub\":{\"b\":\"text\",\"c\":true}} "); // same values
+
+        assertEquals(version, node.snapshot().version());
+        assertSame(ConfigChangeSet.EMPTY, node.changes().get());
+
+        content.set("{\"a\":1,\"routes\":{\"r1\":\"x\",\"r2\":[1,2,3]},\"sub\":{\"b\":\"text\",\"c\":true},\"added\":1}");
+
+        assertEquals(List.of(new ConfigChange(List.of("added"), ConfigChange.Type.ADDED)), node.changes().get().changes());
+    }
+
+    @Test
+    void writeKeepsSkipped() {
+        var a = node.getAsInteger("a");
+        var d = node.node("sub").getAsString("d");
+
+        a.set(5);
+        d.set("added");
+
+        assertEquals(parse("{\"a\":5,\"routes\":{\"r1\":\"x\",\"r2\":[1,2,3]},\"sub\":{\"b\":\"text\",\"c\":true,\"d\":\"added\"}}"), parse(content.get()));
+    }
+
+    @Test
+    void update() {
+        node.getAsInteger("a");
+
+        node.update((tx) -> {
+            tx.remove("routes");
+            tx.node("sub").set("c", false);
+        });
+
+        assertEquals(parse("{\"a\":1,\"sub\":{\"b\":\"text\",\"c\":false}}"), parse(content.get()));
+    }
+
+    @Test
+    void snapshot() {
+        var snapshot = node.snapshot();
+
+        assertEquals("x", snapshot.node("routes").getAsString("r1"));
+        assertEquals(1, snapshot.getAsInteger("a"));
+
+        content.set("{\"a\":2}");
+
+        assertEquals(1, snapshot.getAsInteger("a"));
+        assertEquals(2, node.snapshot().getAsInteger("a"));
+        assertTrue(node.snapshot().version() > snapshot.version());
+    }
+
+    @Test
+    void blankKeepsLastGood() {
+        var a = node.getAsInteger("a");
+
+        content.set("");
+
+        assertEquals(1, a.get());
+        assertInstanceOf(JsonParseException.class, node.parseError().get());
+
+        content.set("{\"a\":2}");
+
+        assertEquals(2, a.get());
+        assertNull(node.parseError().get());
+    }
+
+    @Test
+    void errors() {
+        var a = node.getAsInteger("a");
+
+        content.set("{\"a\":2,\"routes\":{");
+
+        assertEquals(1, a.get());
+        assertNotNull(node.parseError().get());
+
+        content.set("[1, 2]");
+
+        assertEquals(1, a.get());
+        assertNotNull(node.parseError().get());
+
+        content.set("");
+
+        assertEquals(1, a.get());
+
+        a.set(3);
+
+        assertEquals(parse("{\"a\":3,\"routes\":{\"r1\":\"x\",\"r2\":[1,2,3]},\"sub\":{\"b\":\"text\",\"c\":true}}"), parse(content.get()));
+    }
+}
@@ -0,0 +1,85 @@
+package app.finwave.rct.reactive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListenerListTest {
+
+    @Test
+    void addAndRemove() {
+        ListenerList<String> list = new ListenerList<>();
+
+        ListenerRemover first = list.add("first");
+        list.add("second");
+        ListenerRemover third = list.add("third");
+
+        assertEquals(List.of("first", "second", "third"), collect(list));
+
+        third.remove();
+        assertEquals(List.of("first", "second"), collect(list));
+
+        first.remove();
+        first.remove();
+        assertEquals(List.of("second"), collect(list));
+        assertEquals(1, list.entries.length); // compacted
+
+        list.add("first");
+        assertEquals(List.of("second", "first"), collect(list));
+    }
+
+    @Test
+    void changeWhileIterating() {
+        ListenerList<Runnable> list = new ListenerList<>();
+        var ref = new Object() {
+            int calls = 0;
+            ListenerRemover second;
+        };
+
+        list.add(() -> {
+            ref.calls++;
+            ref.second.remove();
+            list.add(() -> ref.calls += 100);
+        });
+        ref.second = list.add(() -> ref.calls += 10);
+
+        list.forEach(Runnable::run);
+        assertEquals(1, ref.calls);
+
+        list.forEach(Runnable::run);
+        assertEquals(102, ref.calls);
+    }
+
+    @Test
+    void manyRemovals() {
+        ListenerList<Integer> list = new ListenerList<>();
+        List<ListenerRemover> removers = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            removers.add(list.add(i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            if (i % 4 != 0)
+                removers.get(i).remove();
+        }
+
+        assertEquals(250, list.size());
+        assertTrue(list.entries.length < 1000);
+        assertEquals(List.of(0, 4, 8), collect(list).subList(0, 3));
+
+        removers.forEach(ListenerRemover::remove);
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.entries.length);
+    }
+
+    <L> List<L> collect(ListenerList<L> list) {
+        List<L> result = new ArrayList<>();
+        list.forEach(result::add);
+
+        return result;
+    }
+}
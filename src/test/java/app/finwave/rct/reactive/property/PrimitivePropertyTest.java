@@ -0,0 +1,67 @@
+package app.finwave.rct.reactive.property;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitivePropertyTest {
+
+    @Test
+    void getAndSet() {
+        IntProperty i = IntProperty.of(5);
+        LongProperty l = LongProperty.create();
+        DoubleProperty d = DoubleProperty.of(1.5);
+        BooleanProperty b = BooleanProperty.of(true);
+
+        assertEquals(5, i.getInt());
+        assertEquals(0, l.getLong());
+        assertNull(l.get());
+        assertEquals(1.5, d.getDouble());
+        assertTrue(b.getBoolean());
+
+        i.setInt(1000);
+        l.setLong(7);
+
+        assertEquals(1000, i.get());
+        assertEquals(7, l.getLong());
+    }
+
+    @Test
+    void getOr() {
+        IntProperty empty = IntProperty.create();
+
+        assertEquals(3, empty.getIntOr(3));
+        assertEquals(3, empty.get());
+        assertEquals(3, empty.getIntOr(4));
+    }
+
+    @Test
+    void primitiveListener() {
+        IntProperty i = IntProperty.of(1);
+        List<Integer> seen = new ArrayList<>();
+
+        i.addIntChangeListener(seen::add);
+
+        i.setInt(2);
+        i.set((Integer) null);
+
+        assertEquals(List.of(2, 0), seen);
+    }
+
+    @Test
+    void boundToBoxed() {
+        Property<Integer> boxed = Property.of(1);
+        IntProperty i = IntProperty.of(boxed);
+
+        assertEquals(1, i.getInt());
+
+        boxed.set(2);
+        assertEquals(2, i.getInt());
+
+        i.setInt(3);
+        assertEquals(3, boxed.get());
+    }
+}
@@ -1,8 +1,11 @@
 package app.finwave.rct.reactive.property;
 
+import app.finwave.rct.reactive.ListenerRemover;
 import app.finwave.rct.reactive.value.Value;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.WeakReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PropertyTest {
@@ -308,4 +311,114 @@ class PropertyTest {
         assertEquals("PropertyImpl{lastValue=123}", Property.of(123).toString());
         assertEquals("PropertyImpl{lastValue=null}", Property.of(() -> 123).toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void concurrentReads() throws InterruptedException {
+        var source = Property.of(0);
+        var mapped = Property.of(() -> source.get() * 2, source);
+
+        var ref = new Object() {
+            volatile boolean done = false;
+            volatile boolean failed = false;
+        };
+
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                int last = 0;
+
+                while (!ref.done) {
+                    int value = mapped.get();
+
+                    if (value < last || value % 2 != 0)
+                        ref.failed = true;
+
+                    last = value;
+                }
+            });
+            readers[i].start();
+        }
+
+        for (int i = 1; i <= 10000; i++) {
+            source.set(i);
+        }
+
+        assertEquals(20000, mapped.get());
+
+        ref.done = true;
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertFalse(ref.failed);
+    }
+
+    @Test
+    void removeListenerWhileNotifying() {
+        var prop = Property.of(0);
+        var ref = new Object() {
+            int calls = 0;
+            ListenerRemover remover;
+        };
+
+        ref.remover = prop.addChangeListener((n) -> {
+            ref.calls++;
+            ref.remover.remove();
+        });
+        prop.addChangeListener((n) -> ref.calls++);
+
+        prop.set(1);
+        prop.set(2);
+
+        assertEquals(3, ref.calls);
+    }
+
+    @Test
+    void unusedMappedCollected() throws InterruptedException {
+        var parent = (PropertyImpl<Integer>) Property.of(1);
+        var derived = Property.of(() -> parent.get() * 2, parent);
+        int registrations = parent.changeListeners.size() + parent.invalidationListeners.size(); // only of derived
+
+        WeakReference<?> mapped = new WeakReference<>(parent.weakMap(String::valueOf, Integer::parseInt));
+        WeakReference<?> listened = new WeakReference<>(parent.weakMapWithListener(String::valueOf, (n) -> {}));
+        WeakReference<?> dynamic = new WeakReference<>(Property.weakOf(() -> parent.get() + 1, parent));
+
+        for (int i = 0; i < 100 && (mapped.get() != null || listened.get() != null || dynamic.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(mapped.get());
+        assertNull(listened.get());
+        assertNull(dynamic.get());
+
+        parent.set(2);
+
+        for (int i = 0; i < 100 && parent.changeListeners.size() + parent.invalidationListeners.size() > registrations; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(registrations, parent.changeListeners.size() + parent.invalidationListeners.size()); // only listeners of derived are kept
+        assertEquals(4, derived.get());
+    }
+
+    @Test
+    void mappedKeptBySource() throws InterruptedException {
+        var parent = Property.of(1);
+
+        var ref = new Object() {
+            String last;
+        };
+
+        parent.map(String::valueOf, Integer::parseInt).addChangeListener((n) -> ref.last = n);
+
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        parent.set(2);
+
+        assertEquals("2", ref.last);
+    }
+}
@@ -2,8 +2,11 @@ package app.finwave.rct.reactive.value;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import app.finwave.rct.reactive.ListenerRemover;
 import app.finwave.rct.reactive.property.Property;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,4 +91,188 @@ class DynamicValueTest {
         assertEquals(0, i.get());
         assertEquals("DynamicValue{value=0}", i.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void diamond() {
+        Property<Integer> source = Property.of(1);
+        Property<Integer> a = Property.of(() -> source.get() * 2, source);
+        Property<Integer> b = Property.of(() -> source.get() * 3, source);
+
+        var ref = new Object() {
+            int runs = 0;
+            final List<String> seen = new ArrayList<>();
+        };
+
+        Value<Integer> sum = Value.dynamic(() -> {
+            ref.runs++;
+
+            return a.get() + b.get();
+        }, a, b);
+
+        a.addChangeListener((n) -> ref.seen.add("a=" + n + " sum=" + sum.get()));
+        b.addChangeListener((n) -> ref.seen.add("b=" + n + " sum=" + sum.get()));
+        sum.addChangeListener((n) -> ref.seen.add("sum=" + n));
+
+        assertEquals(5, sum.get());
+        assertEquals(1, ref.runs);
+        ref.seen.clear();
+
+        source.set(2);
+
+        assertEquals(10, sum.get());
+        assertEquals(2, ref.runs); // recomputed once, listeners did not start it again
+        assertEquals(List.of("a=4 sum=10", "b=6 sum=10", "sum=10"), ref.seen);
+
+        assertTrue(source.rank() < a.rank());
+        assertTrue(a.rank() < sum.rank());
+    }
+
+    @Test
+    void tracked() {
+        Property<Boolean> useA = Property.of(true);
+        Property<String> a = Property.of("a");
+        Property<String> b = Property.of("b");
+        Value<String> upperA = a.map(String::toUpperCase);
+
+        var ref = new Object() {
+            int runs = 0;
+        };
+
+        Value<String> value = Value.tracked(() -> {
+            ref.runs++;
+
+            return useA.get() ? upperA.get() : b.get();
+        });
+
+        assertEquals("A", value.get());
+        assertEquals(1, ref.runs);
+        assertTrue(value.isValid());
+        assertTrue(value.rank() > upperA.rank());
+
+        b.set("b2"); // not read, ignored
+        assertTrue(value.isValid());
+        assertEquals("A", value.get());
+        assertEquals(1, ref.runs);
+
+        a.set("a2");
+        assertFalse(value.isValid());
+        assertEquals("A2", value.get());
+        assertEquals(2, ref.runs);
+
+        useA.set(false);
+        assertEquals("b2", value.get());
+        assertEquals(3, ref.runs);
+
+        a.set("a3"); // branch is not taken anymore
+        assertTrue(value.isValid());
+        assertEquals(3, ref.runs);
+
+        b.set("b3");
+        assertEquals("b3", value.get());
+        assertEquals(4, ref.runs);
+    }
+
+    @Test
+    void trackedWithoutDependencies() {
+        var ref = new Object() {
+            int runs = 0;
+        };
+
+        Value<Integer> value = Value.tracked(() -> ++ref.runs);
+
+        assertEquals(1, value.get());
+        assertEquals(2, value.get());
+        assertFalse(value.isValid());
+    }
+
+    @Test
+    void coldAndHot() {
+        Property<Integer> source = Property.of(1);
+
+        var ref = new Object() {
+            int runs = 0;
+            final List<Integer> changes = new ArrayList<>();
+        };
+
+        DynamicValue<Integer> doubled = (DynamicValue<Integer>) Value.dynamic(() -> {
+            ref.runs++;
+
+            return source.get() * 2;
+        }, source);
+
+        assertEquals(2, doubled.get());
+        assertTrue(doubled.subscriptions.isEmpty()); // nobody listens, so source does not know about value
+        assertTrue(doubled.isValid());
+        assertEquals(2, doubled.get());
+        assertEquals(1, ref.runs);
+
+        source.set(3);
+        assertFalse(doubled.isValid());
+        assertEquals(6, doubled.get());
+        assertEquals(2, ref.runs);
+
+        ListenerRemover remover = doubled.addChangeListener(ref.changes::add);
+        assertEquals(1, doubled.subscriptions.size());
+
+        assertEquals(6, doubled.get());
+        source.set(4);
+        assertFalse(doubled.isValid());
+        assertEquals(8, doubled.get());
+        assertEquals(List.of(8), ref.changes);
+
+        remover.remove();
+        assertTrue(doubled.subscriptions.isEmpty());
+
+        source.set(5);
+        assertEquals(10, doubled.get());
+        assertEquals(List.of(8), ref.changes);
+    }
+
+    @Test
+    void coldSkipsUnchanged() {
+        Property<Integer> source = Property.of(1);
+        Value<Boolean> positive = Value.dynamic(() -> source.get() > 0, source);
+
+        var ref = new Object() {
+            int runs = 0;
+        };
+
+        Value<String> sign = Value.dynamic(() -> {
+            ref.runs++;
+
+            return positive.get() ? "+" : "-";
+        }, positive);
+
+        assertEquals("+", sign.get());
+
+        source.set(2); // positive is recomputed, but stays the same
+        assertEquals("+", sign.get());
+        assertEquals(1, ref.runs);
+
+        source.set(-1);
+        assertEquals("-", sign.get());
+        assertEquals(2, ref.runs);
+    }
+
+    @Test
+    void invalidatedWhileComputing() {
+        Property<Integer> source = Property.of(1);
+
+        Value<Integer> doubled = Value.dynamic(() -> {
+            int value = source.get();
+
+            if (value == 1)
+                source.set(5); // invalidates the value in the middle of its own compute
+
+            return value * 2;
+        }, source);
+
+        doubled.addInvalidationListener(() -> {}); // hot
+
+        doubled.get();
+
+        assertFalse(doubled.isValid());
+        assertEquals(10, doubled.get());
+        assertTrue(doubled.isValid());
+    }
+}